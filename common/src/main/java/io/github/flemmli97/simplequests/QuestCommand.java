@@ -8,6 +8,7 @@ import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import io.github.flemmli97.simplequests.config.ConfigHandler;
+import io.github.flemmli97.simplequests.datapack.QuestHotReload;
 import io.github.flemmli97.simplequests.datapack.QuestsManager;
 import io.github.flemmli97.simplequests.gui.CurrentQuestGui;
 import io.github.flemmli97.simplequests.gui.QuestCategoryGui;
@@ -151,6 +152,7 @@ public class QuestCommand {
 
     private static int reload(CommandContext<CommandSourceStack> ctx) {
         ConfigHandler.reloadConfigs();
+        QuestHotReload.start(ctx.getSource().getServer());
         ctx.getSource().sendSuccess(() -> Component.translatable(ConfigHandler.LANG.get(null, "simplequests.reload")), true);
         return Command.SINGLE_SUCCESS;
     }
@@ -42,6 +42,22 @@ public interface QuestEntry {
         return null;
     }
 
+    /**
+     * @return The interval in ticks in which {@link #tickable()} gets checked.
+     * The checks of different players are spread out over the interval
+     */
+    default int tickInterval() {
+        return 1;
+    }
+
+    /**
+     * @return The area the {@link #tickable()} can be fulfilled in. If not null it only gets checked while the player is near it.
+     */
+    default @Nullable
+    TickableArea tickableArea() {
+        return null;
+    }
+
     /**
      * Get the actual QuestEntry for the given player when the player accepts a quest with this entry
      * In most cases return self
@@ -0,0 +1,59 @@
+package io.github.flemmli97.simplequests.api;
+
+import net.minecraft.advancements.critereon.LocationPredicate;
+import net.minecraft.advancements.critereon.MinMaxBounds;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
+/**
+ * The area a {@link QuestEntry#tickable()} can be fulfilled in.
+ * Unbounded axis use {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE}.
+ *
+ * @param dimension The dimension of the area or null for any dimension
+ */
+public record TickableArea(@Nullable ResourceKey<Level> dimension, int minX, int minY, int minZ, int maxX, int maxY,
+                           int maxZ) {
+
+    public static TickableArea around(BlockPos pos, int radius) {
+        return new TickableArea(null, pos.getX() - radius, pos.getY() - radius, pos.getZ() - radius,
+                pos.getX() + radius, pos.getY() + radius, pos.getZ() + radius);
+    }
+
+    /**
+     * @return The area matched by the dimension and position of the predicate or null if neither are specified
+     */
+    @Nullable
+    public static TickableArea of(LocationPredicate predicate) {
+        if (predicate.dimension().isEmpty() && predicate.position().isEmpty())
+            return null;
+        ResourceKey<Level> dimension = predicate.dimension().orElse(null);
+        if (predicate.position().isEmpty())
+            return new TickableArea(dimension, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        LocationPredicate.PositionPredicate pos = predicate.position().get();
+        return new TickableArea(dimension, min(pos.x()), min(pos.y()), min(pos.z()), max(pos.x()), max(pos.y()), max(pos.z()));
+    }
+
+    private static int min(MinMaxBounds.Doubles bounds) {
+        Optional<Double> min = bounds.min();
+        return min.map(Mth::floor).orElse(Integer.MIN_VALUE);
+    }
+
+    private static int max(MinMaxBounds.Doubles bounds) {
+        Optional<Double> max = bounds.max();
+        return max.map(Mth::ceil).orElse(Integer.MAX_VALUE);
+    }
+
+    public boolean boundedXZ() {
+        return this.minX != Integer.MIN_VALUE && this.maxX != Integer.MAX_VALUE
+                && this.minZ != Integer.MIN_VALUE && this.maxZ != Integer.MAX_VALUE;
+    }
+
+    public boolean boundedY() {
+        return this.minY != Integer.MIN_VALUE && this.maxY != Integer.MAX_VALUE;
+    }
+}
@@ -1,11 +1,14 @@
 package io.github.flemmli97.simplequests.config;
 
 import io.github.flemmli97.simplequests.SimpleQuests;
+import io.github.flemmli97.simplequests.player.QuestResetClock;
+import net.minecraft.util.Mth;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.DayOfWeek;
 
 public class Config {
 
@@ -20,6 +23,24 @@ public class Config {
 
     public int dailyQuestAmount = -1;
 
+    public boolean coalesceQuestEvents = false;
+
+    public String resetZone = "";
+    public int resetHour = 0;
+    public QuestResetClock.ResetPeriod resetPeriod = QuestResetClock.ResetPeriod.DAILY;
+    public DayOfWeek resetDay = DayOfWeek.MONDAY;
+    public int resetRolloversPerTick = 5;
+
+    public boolean notifyQuestAvailable = false;
+
+    public boolean separateQuestStorage = false;
+
+    public int blockTrackerBloomThreshold = -1;
+
+    public String questHotReloadDir = "";
+
+    public boolean questSnapshot = false;
+
     public Config() {
         File configDir = SimpleQuests.getHandler().getConfigPath().resolve("simplequests").toFile();
         try {
@@ -46,6 +67,17 @@ public class Config {
             this.mainPermLevel = obj.mainPermLevel;
             this.maxConcurrentQuest = obj.maxConcurrentQuest;
             this.dailyQuestAmount = obj.dailyQuestAmount;
+            this.coalesceQuestEvents = obj.coalesceQuestEvents;
+            this.resetZone = obj.resetZone == null ? "" : obj.resetZone;
+            this.resetHour = Mth.clamp(obj.resetHour, 0, 23);
+            this.resetPeriod = obj.resetPeriod == null ? QuestResetClock.ResetPeriod.DAILY : obj.resetPeriod;
+            this.resetDay = obj.resetDay == null ? DayOfWeek.MONDAY : obj.resetDay;
+            this.resetRolloversPerTick = obj.resetRolloversPerTick;
+            this.notifyQuestAvailable = obj.notifyQuestAvailable;
+            this.separateQuestStorage = obj.separateQuestStorage;
+            this.blockTrackerBloomThreshold = obj.blockTrackerBloomThreshold;
+            this.questHotReloadDir = obj.questHotReloadDir == null ? "" : obj.questHotReloadDir;
+            this.questSnapshot = obj.questSnapshot;
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -2,6 +2,7 @@ package io.github.flemmli97.simplequests.config;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import io.github.flemmli97.simplequests.gui.GuiStackCache;
 
 public class ConfigHandler {
 
@@ -19,5 +20,6 @@ public class ConfigHandler {
     public static void reloadConfigs() {
         CONFIG.load();
         LANG.reload(ConfigHandler.CONFIG.lang);
+        GuiStackCache.clear();
     }
 }
@@ -47,6 +47,7 @@ public class LangManager {
         DEFAULT_TRANSLATION.put("simplequests.accept", "Accepted quest %s");
         DEFAULT_TRANSLATION.put("simplequests.finish", "Finished quest [%s]");
         DEFAULT_TRANSLATION.put("simplequests.current", "Current quest [%s]");
+        DEFAULT_TRANSLATION.put("simplequests.available", "Quest [%s] is available again");
         DEFAULT_TRANSLATION.put("simplequests.current.no", "No active quest");
         DEFAULT_TRANSLATION.put("simplequests.reset", "Reset current quest [%s]");
         DEFAULT_TRANSLATION.put("simplequests.reset.confirm", "Are you sure. Submitted items will not be refunded? Type again to confirm");
@@ -0,0 +1,142 @@
+package io.github.flemmli97.simplequests.datapack;
+
+import io.github.flemmli97.simplequests.SimpleQuests;
+import io.github.flemmli97.simplequests.config.ConfigHandler;
+import net.minecraft.Util;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.util.profiling.InactiveProfiler;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches the directory of {@link io.github.flemmli97.simplequests.config.Config#questHotReloadDir} and reloads only the quests
+ * and categories when files in it change, instead of a full /reload.
+ * The directory should be a folder datapack of the world since the quests are read through the resource manager of the server.
+ * Changes are collected till nothing changed for a short time so saving multiple files only reloads once.
+ */
+public class QuestHotReload {
+
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private static WatchService watcher;
+
+    /**
+     * Starts watching the configured directory. Stops the previous watcher if there is one
+     */
+    public static synchronized void start(MinecraftServer server) {
+        stop();
+        String dir = ConfigHandler.CONFIG.questHotReloadDir;
+        if (dir.isEmpty())
+            return;
+        Path root = server.getWorldPath(LevelResource.ROOT).resolve(dir);
+        if (!Files.isDirectory(root)) {
+            SimpleQuests.LOGGER.warn("Quest hot reload directory {} doesn't exist", root);
+            return;
+        }
+        try {
+            WatchService service = root.getFileSystem().newWatchService();
+            register(service, root);
+            watcher = service;
+            Thread thread = new Thread(() -> watch(server, service), "SimpleQuests Hot Reload");
+            thread.setDaemon(true);
+            thread.start();
+            SimpleQuests.LOGGER.info("Watching {} for quest changes", root);
+        } catch (IOException e) {
+            SimpleQuests.LOGGER.error("Couldn't watch quest directory {}", root, e);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (watcher == null)
+            return;
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+        }
+        watcher = null;
+    }
+
+    private static void register(WatchService service, Path dir) throws IOException {
+        List<Path> dirs;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            dirs = paths.filter(Files::isDirectory).toList();
+        }
+        for (Path path : dirs)
+            path.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private static void watch(MinecraftServer server, WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                while (key != null) {
+                    changed |= handleEvents(service, key);
+                    key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (changed)
+                    server.execute(() -> reload(server));
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+        }
+    }
+
+    /**
+     * @return If any of the events can change the quests
+     */
+    private static boolean handleEvents(WatchService service, WatchKey key) {
+        Path dir = (Path) key.watchable();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    register(service, path);
+                } catch (IOException e) {
+                    SimpleQuests.LOGGER.error("Couldn't watch quest directory {}", path, e);
+                }
+                changed = true;
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE || path.getFileName().toString().endsWith(".json")) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Runs the quest reload pipeline on the background executor and applies the result on the main thread.
+     * Must be called on the main thread
+     */
+    private static void reload(MinecraftServer server) {
+        QuestsManager manager = QuestsManager.instance();
+        ResourceManager resources = server.getResourceManager();
+        CompletableFuture.supplyAsync(() -> manager.prepare(resources, InactiveProfiler.INSTANCE), Util.backgroundExecutor())
+                .thenAcceptAsync(result -> {
+                    // A full reload happened in the meantime
+                    if (QuestsManager.instance() == manager)
+                        manager.apply(result, resources, InactiveProfiler.INSTANCE);
+                }, server)
+                .exceptionally(e -> {
+                    SimpleQuests.LOGGER.error("Failed to hot reload quests", e);
+                    return null;
+                });
+    }
+}
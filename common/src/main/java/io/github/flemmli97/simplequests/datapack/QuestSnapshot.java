@@ -0,0 +1,302 @@
+package io.github.flemmli97.simplequests.datapack;
+
+import com.google.common.hash.HashCode;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.internal.LazilyParsedNumber;
+import io.github.flemmli97.simplequests.SimpleQuests;
+import io.github.flemmli97.simplequests.mixin.PathPackResourcesAccessor;
+import net.minecraft.ResourceLocationException;
+import net.minecraft.Util;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.PackType;
+import net.minecraft.server.packs.resources.Resource;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshot of the quest and category files saved in the config folder so a cold start doesn't need to read, hash and parse every file.
+ * Each file is keyed by its pack, size and modification time. On a match only the file attributes are read and the content hash and
+ * the json are taken from the snapshot. The json is stored as a binary tree so it doesn't need to be parsed again.
+ * Only files of folder packs can be keyed this way. Files of zip and mod packs are always read.
+ * The codecs still run on every load since decoded quests reference registry entries of the current world.
+ */
+public class QuestSnapshot {
+
+    public static final QuestSnapshot EMPTY = new QuestSnapshot(Map.of());
+
+    private static final int VERSION = 1;
+    private static final int HASH_BYTES = 16;
+
+    private static final byte NULL = 0;
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte NUMBER = 4;
+    private static final byte STRING = 5;
+
+    /**
+     * The snapshot of the last load. Only read from disk on the first load
+     */
+    private static volatile QuestSnapshot current;
+
+    private final Map<ResourceLocation, Entry> entries;
+
+    private QuestSnapshot(Map<ResourceLocation, Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static QuestSnapshot current() {
+        QuestSnapshot snapshot = current;
+        if (snapshot == null) {
+            snapshot = read(file());
+            current = snapshot;
+        }
+        return snapshot;
+    }
+
+    private static Path file() {
+        return SimpleQuests.getHandler().getConfigPath().resolve("simplequests").resolve("quest_snapshot.bin");
+    }
+
+    /**
+     * @param file The full location of the file in the pack
+     * @return The entry for the file if its source didn't change
+     */
+    @Nullable
+    public Entry get(ResourceLocation file, Source source) {
+        Entry entry = this.entries.get(file);
+        return entry != null && entry.source().equals(source) ? entry : null;
+    }
+
+    /**
+     * @return The key of the file or null if it isn't from a folder pack
+     */
+    @Nullable
+    public static Source source(ResourceLocation file, Resource resource) {
+        if (!(resource.source() instanceof PathPackResourcesAccessor pack))
+            return null;
+        Path path = pack.packRoot().resolve(PackType.SERVER_DATA.getDirectory()).resolve(file.getNamespace());
+        for (String segment : file.getPath().split("/"))
+            path = path.resolve(segment);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new Source(resource.sourcePackId(), attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static QuestSnapshot read(Path path) {
+        ByteBuffer buffer;
+        try {
+            // Read in one go instead of mapping the file. Mapped files stay locked on windows and the snapshot gets replaced while running
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (NoSuchFileException e) {
+            return EMPTY;
+        } catch (IOException e) {
+            SimpleQuests.LOGGER.error("Couldn't read quest snapshot {}", path, e);
+            return EMPTY;
+        }
+        try {
+            if (buffer.getInt() != VERSION)
+                return EMPTY;
+            int size = buffer.getInt();
+            Map<ResourceLocation, Entry> entries = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                ResourceLocation file = ResourceLocation.parse(readString(buffer));
+                Source source = new Source(readString(buffer), buffer.getLong(), buffer.getLong());
+                byte[] hash = new byte[HASH_BYTES];
+                buffer.get(hash);
+                byte[] json = new byte[buffer.getInt()];
+                buffer.get(json);
+                entries.put(file, new Entry(source, HashCode.fromBytes(hash), json));
+            }
+            return new QuestSnapshot(entries);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException | ResourceLocationException e) {
+            SimpleQuests.LOGGER.error("Quest snapshot {} is corrupted. Reading all files instead", path);
+            return EMPTY;
+        }
+    }
+
+    private static synchronized void write(Path path, QuestSnapshot snapshot) {
+        // A later load already replaced it
+        if (current != snapshot)
+            return;
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.entries.size());
+                for (Map.Entry<ResourceLocation, Entry> e : snapshot.entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    writeString(out, e.getKey().toString());
+                    writeString(out, entry.source().pack());
+                    out.writeLong(entry.source().size());
+                    out.writeLong(entry.source().modified());
+                    out.write(entry.hash().asBytes());
+                    out.writeInt(entry.json().length);
+                    out.write(entry.json());
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            SimpleQuests.LOGGER.error("Couldn't save quest snapshot {}", path, e);
+        }
+    }
+
+    public static byte[] encode(JsonElement element) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeJson(out, element);
+        } catch (IOException e) {
+            // Writing to a byte array doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException If the data is not a valid encoded json element
+     */
+    public static JsonElement decode(byte[] json) {
+        try {
+            return readJson(ByteBuffer.wrap(json));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated json data", e);
+        }
+    }
+
+    private static void writeJson(DataOutputStream out, JsonElement element) throws IOException {
+        if (element.isJsonObject()) {
+            JsonObject obj = element.getAsJsonObject();
+            out.writeByte(OBJECT);
+            out.writeInt(obj.size());
+            for (Map.Entry<String, JsonElement> e : obj.entrySet()) {
+                writeString(out, e.getKey());
+                writeJson(out, e.getValue());
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            out.writeByte(ARRAY);
+            out.writeInt(array.size());
+            for (JsonElement e : array)
+                writeJson(out, e);
+        } else if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(primitive.getAsBoolean());
+            } else {
+                // Numbers are kept as their text like gson does when parsing
+                out.writeByte(primitive.isNumber() ? NUMBER : STRING);
+                writeString(out, primitive.getAsString());
+            }
+        } else {
+            out.writeByte(NULL);
+        }
+    }
+
+    private static JsonElement readJson(ByteBuffer buffer) {
+        byte type = buffer.get();
+        return switch (type) {
+            case NULL -> JsonNull.INSTANCE;
+            case OBJECT -> {
+                int size = buffer.getInt();
+                JsonObject obj = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(buffer);
+                    obj.add(key, readJson(buffer));
+                }
+                yield obj;
+            }
+            case ARRAY -> {
+                int size = buffer.getInt();
+                JsonArray array = new JsonArray(size);
+                for (int i = 0; i < size; i++)
+                    array.add(readJson(buffer));
+                yield array;
+            }
+            case BOOLEAN -> new JsonPrimitive(buffer.get() != 0);
+            case NUMBER -> new JsonPrimitive(new LazilyParsedNumber(readString(buffer)));
+            case STRING -> new JsonPrimitive(readString(buffer));
+            default -> throw new IllegalArgumentException("Unknown json type " + type);
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+            throw new IllegalArgumentException("Invalid string length " + length);
+        String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+    /**
+     * @param modified Last modification time in milliseconds
+     */
+    public record Source(String pack, long size, long modified) {
+    }
+
+    /**
+     * @param json The file content encoded with {@link #encode(JsonElement)}
+     */
+    public record Entry(Source source, HashCode hash, byte[] json) {
+    }
+
+    /**
+     * Collects the entries of the files of a load. Decoding happens in parallel so entries can be added from multiple threads
+     */
+    public static class Builder {
+
+        private final QuestSnapshot previous;
+        private final Map<ResourceLocation, Entry> entries = new ConcurrentHashMap<>();
+        private volatile boolean changed;
+
+        public Builder(QuestSnapshot previous) {
+            this.previous = previous;
+        }
+
+        public void put(ResourceLocation file, Entry entry) {
+            this.entries.put(file, entry);
+            if (this.previous.entries.get(file) != entry)
+                this.changed = true;
+        }
+
+        /**
+         * Makes the collected entries the current snapshot and saves them off thread if anything changed
+         */
+        public void finish() {
+            QuestSnapshot snapshot = new QuestSnapshot(Map.copyOf(this.entries));
+            current = snapshot;
+            if (this.changed || snapshot.entries.size() != this.previous.entries.size())
+                Util.ioPool().execute(() -> write(file(), snapshot));
+        }
+    }
+}
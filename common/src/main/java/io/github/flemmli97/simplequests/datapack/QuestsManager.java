@@ -1,7 +1,8 @@
 package io.github.flemmli97.simplequests.datapack;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
@@ -11,22 +12,42 @@ import com.google.gson.JsonSyntaxException;
 import com.mojang.serialization.DynamicOps;
 import com.mojang.serialization.JsonOps;
 import io.github.flemmli97.simplequests.SimpleQuests;
+import io.github.flemmli97.simplequests.config.ConfigHandler;
+import io.github.flemmli97.simplequests.gui.GuiStackCache;
+import io.github.flemmli97.simplequests.player.ProgressRebinder;
+import io.github.flemmli97.simplequests.quest.DailyQuestPool;
 import io.github.flemmli97.simplequests.quest.QuestCategory;
+import io.github.flemmli97.simplequests.quest.QuestGraph;
+import io.github.flemmli97.simplequests.quest.QuestIndex;
 import io.github.flemmli97.simplequests.quest.types.Quest;
 import io.github.flemmli97.simplequests.quest.types.QuestBase;
 import net.minecraft.core.HolderLookup;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
 import net.minecraft.util.GsonHelper;
 import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.level.storage.loot.LootDataType;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class QuestsManager extends SimplePreparableReloadListener<QuestsManager.ResourceResult> {
@@ -39,6 +60,16 @@ public class QuestsManager extends SimplePreparableReloadListener<QuestsManager.
     private static final Gson GSON = new GsonBuilder().create();
     public static QuestsManager INSTANCE;
 
+    /**
+     * Categories of the reload that is decoding quests on the current thread.
+     * Quests are decoded before the categories of the reload are applied
+     */
+    private static final ThreadLocal<Map<ResourceLocation, QuestCategory>> DECODING_CATEGORIES = new ThreadLocal<>();
+    /**
+     * Static since a new manager is created for every reload
+     */
+    private static volatile DecodeCache decodeCache;
+
     private final HolderLookup.Provider provider;
     private Map<ResourceLocation, QuestCategory> categories;
     private Map<ResourceLocation, QuestCategory> selectableCategories;
@@ -46,8 +77,13 @@ public class QuestsManager extends SimplePreparableReloadListener<QuestsManager.
 
     private Map<ResourceLocation, QuestBase> questMap;
     private Map<QuestCategory, Map<ResourceLocation, QuestBase>> quests;
+    private Map<QuestCategory, List<QuestBase>> questLists;
 
     private Map<QuestCategory, Set<Quest>> dailyQuests;
+    private Map<QuestCategory, DailyQuestPool> dailyPools;
+    private DailyQuestPool dailyPool = DailyQuestPool.EMPTY;
+    private QuestGraph graph = QuestGraph.EMPTY;
+    private QuestIndex index = QuestIndex.EMPTY;
 
     public QuestsManager(HolderLookup.Provider provider) {
         this.provider = provider;
@@ -57,45 +93,197 @@ public class QuestsManager extends SimplePreparableReloadListener<QuestsManager.
         return INSTANCE;
     }
 
+    /**
+     * Category lookup for the quest codecs. Uses the categories of the reload currently decoding on this thread if there is one
+     */
+    public static QuestCategory decodingCategory(ResourceLocation res) {
+        Map<ResourceLocation, QuestCategory> decoding = DECODING_CATEGORIES.get();
+        if (decoding != null)
+            return res.equals(QuestCategory.DEFAULT_CATEGORY.id) ? QuestCategory.DEFAULT_CATEGORY : decoding.get(res);
+        return instance().getQuestCategory(res);
+    }
+
+    /**
+     * Decodes the files off the main thread. Categories get decoded first since quests reference them, then all quests in parallel.
+     * Prepare runs on the background executor so the parallel streams use its fork join pool.
+     * Files with the same content as in the last reload of the same world reuse the previously decoded value.
+     * If {@link io.github.flemmli97.simplequests.config.Config#questSnapshot} is enabled unchanged files of folder packs
+     * are taken from the {@link QuestSnapshot} instead of being read and parsed, which includes the first load after a restart
+     */
     @Override
     protected ResourceResult prepare(ResourceManager resourceManager, ProfilerFiller profiler) {
-        return new ResourceResult(this.readFiles(resourceManager, CATEGORY_LOCATION),
-                this.readFiles(resourceManager, QUEST_LOCATION));
+        long start = System.nanoTime();
+        DynamicOps<JsonElement> ops = this.provider.createSerializationContext(JsonOps.INSTANCE);
+        // Decoded values hold registry entries so they can only be reused with the same registries
+        List<Object> registries = cachedRegistries(this.provider);
+        DecodeCache previous = decodeCache != null && decodeCache.registries().equals(registries) ? decodeCache : new DecodeCache(registries, Map.of(), Map.of());
+
+        QuestSnapshot snapshot = ConfigHandler.CONFIG.questSnapshot ? QuestSnapshot.current() : QuestSnapshot.EMPTY;
+        QuestSnapshot.Builder nextSnapshot = ConfigHandler.CONFIG.questSnapshot ? new QuestSnapshot.Builder(snapshot) : null;
+        SourceFiles sources = new SourceFiles(snapshot, nextSnapshot, new AtomicInteger());
+
+        AtomicInteger reused = new AtomicInteger();
+        Map<ResourceLocation, Decoded<QuestCategory>> categories = new ConcurrentHashMap<>();
+        decodeFiles(CATEGORY_LOCATION, this.listFiles(resourceManager, CATEGORY_LOCATION), sources, previous.categories(), categories, reused, c -> true, (res, el) -> {
+            if (!el.isJsonObject())
+                return null;
+            JsonObject obj = el.getAsJsonObject();
+            if (obj.keySet().isEmpty())
+                return null;
+            obj.addProperty("id", res.toString());
+            return QuestCategory.CODEC.apply(true).parse(ops, obj).getOrThrow();
+        });
+        Map<ResourceLocation, QuestCategory> categoryMap = new HashMap<>();
+        categories.forEach((res, decoded) -> categoryMap.put(res, decoded.value()));
+
+        Map<ResourceLocation, Decoded<QuestBase>> quests = new ConcurrentHashMap<>();
+        // Quests of changed categories need to be decoded again to reference the new category
+        decodeFiles(QUEST_LOCATION, this.listFiles(resourceManager, QUEST_LOCATION), sources, previous.quests(), quests, reused,
+                quest -> quest.category == QuestCategory.DEFAULT_CATEGORY || categoryMap.get(quest.category.id) == quest.category,
+                (res, el) -> this.decodeQuest(ops, categoryMap, res, el));
+
+        Map<ResourceLocation, QuestBase> questMap = new HashMap<>();
+        quests.forEach((res, decoded) -> questMap.put(res, decoded.value()));
+        if (nextSnapshot != null)
+            nextSnapshot.finish();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (previous.categories().isEmpty() && previous.quests().isEmpty())
+            SimpleQuests.LOGGER.info("Loaded {} quests and {} categories in {}ms, {} files from the snapshot", questMap.size(), categoryMap.size(),
+                    millis, sources.fromSnapshot().get());
+        else
+            SimpleQuests.LOGGER.info("Loaded {} quests and {} categories in {}ms, {} reused from the last reload, {} files from the snapshot", questMap.size(), categoryMap.size(),
+                    millis, reused.get(), sources.fromSnapshot().get());
+        return new ResourceResult(categoryMap, questMap, new DecodeCache(registries, categories, quests));
+    }
+
+    /**
+     * The registries decoded values can reference. Each reload composes a new registry access and recreates the loot registries,
+     * but the other registries stay the same till the world changes. Quests only reference loot tables by their key
+     */
+    private static List<Object> cachedRegistries(HolderLookup.Provider provider) {
+        if (!(provider instanceof RegistryAccess access))
+            return List.of(provider);
+        Set<ResourceKey<? extends Registry<?>>> reloadable = LootDataType.values().map(LootDataType::registryKey).collect(Collectors.toSet());
+        return access.registries().filter(e -> !reloadable.contains(e.key()))
+                .map(e -> (Object) e.value()).toList();
+    }
+
+    /**
+     * Decodes all files in parallel. Files whose content hash matches the previous one and pass the reusable check keep the previous value
+     */
+    private static <T> void decodeFiles(String directory, Map<ResourceLocation, Resource> files, SourceFiles sources, Map<ResourceLocation, Decoded<T>> previous,
+                                        Map<ResourceLocation, Decoded<T>> decoded, AtomicInteger reused, Predicate<T> reusable, BiFunction<ResourceLocation, JsonElement, T> decoder) {
+        files.entrySet().parallelStream().forEach(e -> {
+            ResourceLocation id = e.getKey();
+            Resource resource = e.getValue();
+            ResourceLocation file = ResourceLocation.fromNamespaceAndPath(id.getNamespace(), directory + "/" + id.getPath() + ".json");
+            QuestSnapshot.Source source = sources.next() != null ? QuestSnapshot.source(file, resource) : null;
+            QuestSnapshot.Entry entry = source != null ? sources.snapshot().get(file, source) : null;
+            HashCode hash;
+            JsonElement el = null;
+            if (entry != null) {
+                hash = entry.hash();
+                sources.fromSnapshot().incrementAndGet();
+            } else {
+                byte[] content = readFile(id, resource);
+                if (content == null)
+                    return;
+                hash = Hashing.murmur3_128().hashBytes(content);
+                el = parseFile(id, resource, content);
+                if (el == null)
+                    return;
+                // Encoded before decoding since the decoders can modify the json
+                if (source != null)
+                    entry = new QuestSnapshot.Entry(source, hash, QuestSnapshot.encode(el));
+            }
+            if (source != null)
+                sources.next().put(file, entry);
+            Decoded<T> old = previous.get(id);
+            if (old != null && old.hash().equals(hash) && reusable.test(old.value())) {
+                decoded.put(id, old);
+                reused.incrementAndGet();
+                return;
+            }
+            // Json of files from the snapshot is only decoded if the value can't be reused
+            if (el == null) {
+                try {
+                    el = QuestSnapshot.decode(entry.json());
+                } catch (IllegalArgumentException ex) {
+                    SimpleQuests.LOGGER.error("Invalid snapshot entry for {}. Reading the file instead", file);
+                    byte[] content = readFile(id, resource);
+                    el = content != null ? parseFile(id, resource, content) : null;
+                    if (el == null)
+                        return;
+                    sources.next().put(file, new QuestSnapshot.Entry(source, Hashing.murmur3_128().hashBytes(content), QuestSnapshot.encode(el)));
+                }
+            }
+            T value = decoder.apply(id, el);
+            if (value != null)
+                decoded.put(id, new Decoded<>(hash, value));
+        });
+    }
+
+    @Nullable
+    private static byte[] readFile(ResourceLocation id, Resource resource) {
+        try (InputStream in = resource.open()) {
+            return in.readAllBytes();
+        } catch (IOException ex) {
+            SimpleQuests.LOGGER.error("Couldn't read data file {} from {}", id, resource.sourcePackId(), ex);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static JsonElement parseFile(ResourceLocation id, Resource resource, byte[] content) {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+            return GsonHelper.fromJson(GSON, reader, JsonElement.class);
+        } catch (IllegalArgumentException | IOException | JsonParseException ex) {
+            SimpleQuests.LOGGER.error("Couldn't parse data file {} from {}", id, resource.sourcePackId(), ex);
+            return null;
+        }
+    }
+
+    private QuestBase decodeQuest(DynamicOps<JsonElement> ops, Map<ResourceLocation, QuestCategory> categories, ResourceLocation res, JsonElement el) {
+        if (!el.isJsonObject())
+            return null;
+        DECODING_CATEGORIES.set(categories);
+        try {
+            JsonObject obj = el.getAsJsonObject();
+            if (obj.keySet().isEmpty())
+                return null;
+            String cat = GsonHelper.getAsString(obj, "category", "");
+            QuestCategory questCategory = QuestCategory.DEFAULT_CATEGORY;
+            if (!cat.isEmpty()) {
+                questCategory = decodingCategory(ResourceLocation.parse(cat));
+                if (questCategory == null)
+                    throw new JsonSyntaxException("Quest category of " + cat + " for quest " + res + " doesn't exist!");
+            }
+            ResourceLocation questType = ResourceLocation.parse(GsonHelper.getAsString(obj, QuestBase.TYPE_ID, Quest.ID.toString()));
+            return QuestBaseRegistry.deserialize(ops, questType, res, questCategory, obj);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            DECODING_CATEGORIES.remove();
+        }
     }
 
-    private Map<ResourceLocation, JsonElement> readFiles(ResourceManager resourceManager, String directory) {
+    private Map<ResourceLocation, Resource> listFiles(ResourceManager resourceManager, String directory) {
         int i = directory.length() + 1;
-        Map<ResourceLocation, JsonElement> map = Maps.newHashMap();
+        Map<ResourceLocation, Resource> map = new HashMap<>();
         resourceManager.listResources(directory, file -> file.getPath().endsWith(".json")).forEach((fileRes, resource) -> {
             String path = fileRes.getPath();
-            ResourceLocation id = ResourceLocation.fromNamespaceAndPath(fileRes.getNamespace(), path.substring(i, path.length() - PATH_SUFFIX_LENGTH));
-            try (BufferedReader reader = resource.openAsReader()) {
-                JsonElement jsonElement = GsonHelper.fromJson(GSON, reader, JsonElement.class);
-                JsonElement jsonElement2 = map.put(id, jsonElement);
-                if (jsonElement2 != null) {
-                    throw new IllegalStateException("Duplicate data file ignored with ID " + id);
-                }
-            } catch (IllegalArgumentException | IOException | JsonParseException e) {
-                SimpleQuests.LOGGER.error("Couldn't parse data file {} from {}", new Object[]{id, fileRes, e});
-            }
+            map.put(ResourceLocation.fromNamespaceAndPath(fileRes.getNamespace(), path.substring(i, path.length() - PATH_SUFFIX_LENGTH)), resource);
         });
         return map;
     }
 
     @Override
     public void apply(ResourceResult result, ResourceManager resourceManager, ProfilerFiller profiler) {
+        decodeCache = result.cache;
         ImmutableMap.Builder<ResourceLocation, QuestCategory> categoryBuilder = new ImmutableMap.Builder<>();
         categoryBuilder.put(QuestCategory.DEFAULT_CATEGORY.id, QuestCategory.DEFAULT_CATEGORY);
-        DynamicOps<JsonElement> ops = this.provider.createSerializationContext(JsonOps.INSTANCE);
-        result.categories.forEach((res, el) -> {
-            if (el.isJsonObject()) {
-                JsonObject obj = el.getAsJsonObject();
-                if (!obj.keySet().isEmpty()) {
-                    obj.addProperty("id", res.toString());
-                    categoryBuilder.put(res, QuestCategory.CODEC.apply(true).parse(ops, obj).getOrThrow());
-                }
-            }
-        });
+        categoryBuilder.putAll(result.categories);
         categoryBuilder.orderEntriesByValue(QuestCategory::compareTo);
         this.categories = categoryBuilder.build();
         this.selectableCategories = this.categories.entrySet().stream().filter(e -> e.getValue().canBeSelected)
@@ -103,43 +291,40 @@ public class QuestsManager extends SimplePreparableReloadListener<QuestsManager.
         this.categoryView = this.categories.values().stream().toList();
 
         Map<QuestCategory, ImmutableMap.Builder<ResourceLocation, QuestBase>> map = new HashMap<>();
-        result.quests.forEach((res, el) -> {
-            if (el.isJsonObject()) {
-                try {
-                    JsonObject obj = el.getAsJsonObject();
-                    if (!obj.keySet().isEmpty()) {
-                        String cat = GsonHelper.getAsString(obj, "category", "");
-                        QuestCategory questCategory = QuestCategory.DEFAULT_CATEGORY;
-                        if (!cat.isEmpty()) {
-                            questCategory = this.categories.get(ResourceLocation.parse(cat));
-                            if (questCategory == null)
-                                throw new JsonSyntaxException("Quest category of " + cat + " for quest " + res + " doesn't exist!");
-                        }
-                        ResourceLocation questType = ResourceLocation.parse(GsonHelper.getAsString(obj, QuestBase.TYPE_ID, Quest.ID.toString()));
-                        QuestBase base = QuestBaseRegistry.deserialize(ops, questType, res, questCategory, obj);
-                        map.computeIfAbsent(questCategory, c -> new ImmutableMap.Builder<>())
-                                .put(res, base);
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
-        });
+        result.quests.forEach((res, base) -> map.computeIfAbsent(base.category, c -> new ImmutableMap.Builder<>())
+                .put(res, base));
         map.forEach((category, builder) -> builder.orderEntriesByValue(QuestBase::compareTo));
         this.quests = map.entrySet().stream().collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, e -> e.getValue().build()));
         this.questMap = this.quests.values().stream().flatMap(m -> m.entrySet().stream())
                 .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+        this.questLists = this.quests.entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, e -> List.copyOf(e.getValue().values())));
         Map<QuestCategory, Set<Quest>> daily = new HashMap<>();
         this.quests.forEach((cat, q) -> daily.put(cat, q.values().stream().filter(quest -> quest.isDailyQuest && quest instanceof Quest)
                 .map(quest -> (Quest) quest)
                 .collect(Collectors.toSet())));
+        this.graph = QuestGraph.build(this.questMap);
+        this.index = QuestIndex.build(this.questMap.keySet(), this.categories.keySet());
+        GuiStackCache.clear();
         this.dailyQuests = ImmutableMap.copyOf(daily);
+        this.dailyPools = this.dailyQuests.entrySet().stream().filter(e -> !e.getValue().isEmpty())
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, e -> new DailyQuestPool(e.getValue())));
+        this.dailyPool = new DailyQuestPool(this.dailyQuests.values().stream().flatMap(Set::stream).toList());
+        ProgressRebinder.schedule();
     }
 
     public Map<ResourceLocation, QuestBase> getAllQuests() {
         return this.questMap;
     }
 
+    public QuestGraph getQuestGraph() {
+        return this.graph;
+    }
+
+    public QuestIndex getQuestIndex() {
+        return this.index;
+    }
+
     public Quest getActualQuests(ResourceLocation id) {
         QuestBase base = this.questMap.get(id);
         if (base instanceof Quest quest)
@@ -158,6 +343,13 @@ public class QuestsManager extends SimplePreparableReloadListener<QuestsManager.
         return this.quests.getOrDefault(category, Map.of());
     }
 
+    /**
+     * @return The quests of the category in the same order as {@link #getQuestsForCategory(QuestCategory)} but with index based access
+     */
+    public List<QuestBase> getQuestListForCategory(QuestCategory category) {
+        return this.questLists.getOrDefault(category, List.of());
+    }
+
     public Set<Quest> getDailyQuests() {
         return this.getDailyQuests(QuestCategory.DEFAULT_CATEGORY);
     }
@@ -166,6 +358,17 @@ public class QuestsManager extends SimplePreparableReloadListener<QuestsManager.
         return this.dailyQuests.getOrDefault(category, Set.of());
     }
 
+    public DailyQuestPool getDailyPool(QuestCategory category) {
+        return this.dailyPools.getOrDefault(category, DailyQuestPool.EMPTY);
+    }
+
+    /**
+     * @return The pool of the daily quests of all categories
+     */
+    public DailyQuestPool getDailyPool() {
+        return this.dailyPool;
+    }
+
     public QuestCategory getQuestCategory(ResourceLocation res) {
         if (res.equals(QuestCategory.DEFAULT_CATEGORY.id))
             return QuestCategory.DEFAULT_CATEGORY;
@@ -184,7 +387,23 @@ public class QuestsManager extends SimplePreparableReloadListener<QuestsManager.
         return this.categoryView;
     }
 
-    public record ResourceResult(Map<ResourceLocation, JsonElement> categories,
-                                 Map<ResourceLocation, JsonElement> quests) {
+    public record ResourceResult(Map<ResourceLocation, QuestCategory> categories,
+                                 Map<ResourceLocation, QuestBase> quests, DecodeCache cache) {
+    }
+
+    /**
+     * The decoded values of the last reload with the hash of their file content
+     */
+    private record DecodeCache(List<Object> registries, Map<ResourceLocation, Decoded<QuestCategory>> categories,
+                               Map<ResourceLocation, Decoded<QuestBase>> quests) {
+    }
+
+    private record Decoded<T>(HashCode hash, T value) {
+    }
+
+    /**
+     * @param next Collects the entries for the next snapshot. Null if the snapshot is disabled
+     */
+    private record SourceFiles(QuestSnapshot snapshot, @Nullable QuestSnapshot.Builder next, AtomicInteger fromSnapshot) {
     }
 }
@@ -38,7 +38,8 @@ public class CurrentQuestGui extends ServerOnlyScreenHandler<Object> {
 
     public static int QUEST_PER_PAGE = 12;
 
-    private int page, maxPages;
+    private int page;
+    private PagedView<QuestProgress> view;
     private final ServerPlayer player;
 
     protected CurrentQuestGui(int syncId, Inventory playerInventory) {
@@ -106,62 +107,44 @@ public class CurrentQuestGui extends ServerOnlyScreenHandler<Object> {
     protected void fillInventoryWith(Player player, SeparateInv inv, Object data) {
         if (!(player instanceof ServerPlayer serverPlayer))
             return;
-        List<QuestProgress> questMap = PlayerData.get(serverPlayer).getCurrentQuest()
+        List<QuestProgress> quests = PlayerData.get(serverPlayer).getCurrentQuest()
                 .stream().sorted(Comparator.comparing(QuestProgress::getQuest)).toList();
-        this.maxPages = (questMap.size() - 1) / QUEST_PER_PAGE;
-        int page = 0;
-        int id = 0;
-        for (int i = 0; i < 54; i++) {
-            if (i == 0) {
-                ItemStack stack = emptyFiller();
-                inv.updateStack(i, stack);
-            } else if (i == 8 && page < this.maxPages) {
-                ItemStack close = new ItemStack(Items.ARROW);
-                close.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(serverPlayer, "simplequests.gui.next")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
-                inv.updateStack(i, close);
-            } else if (i < 9 || i > 44 || i % 9 == 0 || i % 9 == 8)
-                inv.updateStack(i, emptyFiller());
-            else if (i % 9 == 1 || i % 9 == 4 || i % 9 == 7) {
-                if (id < questMap.size()) {
-                    ItemStack stack = this.ofQuest(questMap.get(id), serverPlayer);
-                    if (!stack.isEmpty()) {
-                        inv.updateStack(i, this.ofQuest(questMap.get(id), serverPlayer));
-                        id++;
-                    }
-                }
-            }
-        }
+        this.view = new PagedView<>(quests, QUEST_PER_PAGE);
+        this.fillPage(serverPlayer, inv);
     }
 
-    private void flipPage() {
-        List<QuestProgress> questMap = PlayerData.get(this.player).getCurrentQuest()
-                .stream().sorted(Comparator.comparing(QuestProgress::getQuest)).toList();
-        int id = this.page * QUEST_PER_PAGE;
+    private void fillPage(ServerPlayer player, SeparateInv inv) {
+        List<QuestProgress> quests = this.view.getPage(this.page);
+        int id = 0;
         for (int i = 0; i < 54; i++) {
             if (i == 0) {
                 ItemStack stack = emptyFiller();
                 if (this.page > 0) {
                     stack = new ItemStack(Items.ARROW);
-                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.gui.previous")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
+                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(player, "simplequests.gui.previous")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
                 }
-                this.slots.get(i).set(stack);
+                updateSlot(inv, i, stack);
             } else if (i == 8) {
                 ItemStack stack = emptyFiller();
-                if (this.page < this.maxPages) {
+                if (this.view.hasNext(this.page)) {
                     stack = new ItemStack(Items.ARROW);
-                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.gui.next")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
+                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(player, "simplequests.gui.next")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
                 }
-                this.slots.get(i).set(stack);
+                updateSlot(inv, i, stack);
             } else if (i < 9 || i > 44 || i % 9 == 0 || i % 9 == 8)
-                this.slots.get(i).set(emptyFiller());
+                updateSlot(inv, i, emptyFiller());
             else if (i % 9 == 1 || i % 9 == 4 || i % 9 == 7) {
-                if (id < questMap.size()) {
-                    this.slots.get(i).set(this.ofQuest(questMap.get(id), this.player));
+                if (id < quests.size()) {
+                    updateSlot(inv, i, this.ofQuest(quests.get(id), player));
                     id++;
                 } else
-                    this.slots.get(i).set(ItemStack.EMPTY);
+                    updateSlot(inv, i, ItemStack.EMPTY);
             }
         }
+    }
+
+    private void flipPage() {
+        this.fillPage(this.player, this.getInventory());
         this.broadcastChanges();
     }
 
@@ -213,6 +196,6 @@ public class CurrentQuestGui extends ServerOnlyScreenHandler<Object> {
 
     @Override
     protected boolean isRightSlot(int slot) {
-        return (this.page > 0 && slot == 0) || (this.page < this.maxPages && slot == 8) || (slot < 45 && slot > 8 && (slot % 9 == 1 || slot % 9 == 4 || slot % 9 == 7));
+        return (this.page > 0 && slot == 0) || (slot == 8 && this.view.hasNext(this.page)) || (slot < 45 && slot > 8 && (slot % 9 == 1 || slot % 9 == 4 || slot % 9 == 7));
     }
 }
@@ -0,0 +1,122 @@
+package io.github.flemmli97.simplequests.gui;
+
+import io.github.flemmli97.simplequests.config.ConfigHandler;
+import io.github.flemmli97.simplequests.player.PlayerData;
+import io.github.flemmli97.simplequests.quest.QuestCategory;
+import io.github.flemmli97.simplequests.quest.types.QuestBase;
+import net.minecraft.ChatFormatting;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.component.CustomData;
+import net.minecraft.world.item.component.ItemLore;
+import net.minecraft.world.item.enchantment.Enchantments;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of the prebuilt display stacks of quests and categories.
+ * The stacks only depend on the quest, the language used and the state of the quest for the player.
+ * Player specific parts like the cooldown get added onto a copy of the template. Dynamic quests are not cached.
+ * Gets cleared on datapack and lang reload.
+ */
+public class GuiStackCache {
+
+    private static final Map<QuestKey, QuestTemplate> QUESTS = new HashMap<>();
+    private static final Map<CategoryKey, ItemStack> CATEGORIES = new HashMap<>();
+
+    public static void clear() {
+        QUESTS.clear();
+        CATEGORIES.clear();
+    }
+
+    /**
+     * @return The display stack of the quest for the player. For {@link PlayerData.AcceptType#DELAY} the cooldown line is at {@link QuestTemplate#cooldownLine()}
+     */
+    public static QuestTemplate quest(ServerPlayer player, QuestBase quest, PlayerData.AcceptType type, boolean active) {
+        // Translation is either handled by the client or uses the server language
+        boolean clientLang = PlayerData.get(player).hasClient;
+        // Dynamic quests are created per player and would never get hit again
+        if (quest.isDynamic())
+            return buildQuest(player, quest, type, active);
+        return QUESTS.computeIfAbsent(new QuestKey(quest, clientLang, type, active), key -> buildQuest(player, quest, type, active));
+    }
+
+    public static ItemStack category(ServerPlayer player, QuestCategory category) {
+        boolean clientLang = PlayerData.get(player).hasClient;
+        return CATEGORIES.computeIfAbsent(new CategoryKey(category, clientLang), key -> buildCategory(category)).copy();
+    }
+
+    private static QuestTemplate buildQuest(ServerPlayer player, QuestBase quest, PlayerData.AcceptType type, boolean active) {
+        ItemStack stack = type == PlayerData.AcceptType.ACCEPT ? quest.getIcon() : new ItemStack(Items.BOOK);
+        stack.set(DataComponents.CUSTOM_NAME, quest.getTask(player).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.GOLD)));
+        List<Component> lore = new ArrayList<>();
+        quest.getDescription(player).forEach(c -> lore.add(c.setStyle(c.getStyle().withItalic(false))));
+        if (active) {
+            stack.enchant(player.registryAccess().registryOrThrow(Registries.ENCHANTMENT).getHolderOrThrow(Enchantments.UNBREAKING), 1);
+            if (stack.has(DataComponents.STORED_ENCHANTMENTS))
+                stack.set(DataComponents.STORED_ENCHANTMENTS, stack.get(DataComponents.STORED_ENCHANTMENTS).withTooltip(false));
+            else if (stack.has(DataComponents.ENCHANTMENTS))
+                stack.set(DataComponents.ENCHANTMENTS, stack.get(DataComponents.ENCHANTMENTS).withTooltip(false));
+        }
+        int cooldownLine = type == PlayerData.AcceptType.DELAY ? lore.size() : -1;
+        for (MutableComponent comp : quest.getFormattedGuiTasks(player))
+            lore.add(comp.setStyle(comp.getStyle().withItalic(false)));
+        MutableComponent requirement = switch (type) {
+            case REQUIREMENTS, ONETIME, DAILYFULL, LOCKED ->
+                    Component.translatable(ConfigHandler.LANG.get(player, type.langKey())).withStyle(ChatFormatting.DARK_RED);
+            default -> null;
+        };
+        if (requirement != null)
+            lore.add(requirement.setStyle(requirement.getStyle().withItalic(false)));
+        stack.set(DataComponents.LORE, new ItemLore(lore));
+        CustomData.update(DataComponents.CUSTOM_DATA, stack, t -> t.putString(QuestGui.STACK_NBT_ID, quest.id.toString()));
+        return new QuestTemplate(stack, cooldownLine);
+    }
+
+    private static ItemStack buildCategory(QuestCategory category) {
+        ItemStack stack = category.getIcon();
+        stack.set(DataComponents.CUSTOM_NAME, category.getName().setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.GOLD)));
+        List<Component> lore = new ArrayList<>();
+        for (String comp : category.description)
+            lore.add(Component.translatable(comp));
+        stack.set(DataComponents.LORE, new ItemLore(lore));
+        CustomData.update(DataComponents.CUSTOM_DATA, stack, t -> t.putString(QuestCategoryGui.STACK_NBT_ID, category.id.toString()));
+        return stack;
+    }
+
+    /**
+     * @param cooldownLine Index in the lore where the cooldown should be inserted or -1
+     */
+    public record QuestTemplate(ItemStack stack, int cooldownLine) {
+
+        /**
+         * @return A copy of the template with the given cooldown line inserted if needed
+         */
+        public ItemStack create(@Nullable Component cooldown) {
+            ItemStack stack = this.stack.copy();
+            if (this.cooldownLine >= 0 && cooldown != null)
+                stack.update(DataComponents.LORE, ItemLore.EMPTY, l -> {
+                    List<Component> lore = new ArrayList<>(l.lines());
+                    lore.add(this.cooldownLine, cooldown);
+                    return new ItemLore(lore);
+                });
+            return stack;
+        }
+    }
+
+    private record QuestKey(QuestBase quest, boolean clientLang, PlayerData.AcceptType type, boolean active) {
+    }
+
+    private record CategoryKey(QuestCategory category, boolean clientLang) {
+    }
+}
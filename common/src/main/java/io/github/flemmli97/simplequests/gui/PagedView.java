@@ -0,0 +1,72 @@
+package io.github.flemmli97.simplequests.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Paged view over a sorted list where entries are only filtered when a page is requested.
+ * A cursor into the source list remembers how far it was filtered so far so opening a page only
+ * checks the entries up to that page and the page after it (to know if there is a next page).
+ * Already resolved pages are kept so going back doesn't need to filter again.
+ */
+public class PagedView<T> {
+
+    private final List<T> source;
+    private final Predicate<T> filter;
+    private final int pageSize;
+    private final List<List<T>> pages = new ArrayList<>();
+    private int cursor;
+
+    public PagedView(List<T> source, Predicate<T> filter, int pageSize) {
+        this.source = source;
+        this.filter = filter;
+        this.pageSize = pageSize;
+    }
+
+    public PagedView(List<T> source, int pageSize) {
+        this(source, t -> true, pageSize);
+    }
+
+    /**
+     * Filters the source until the given page is known
+     *
+     * @return If the page exists
+     */
+    private boolean resolve(int page) {
+        while (this.pages.size() <= page && this.cursor < this.source.size()) {
+            List<T> entries = new ArrayList<>(this.pageSize);
+            while (entries.size() < this.pageSize && this.cursor < this.source.size()) {
+                T t = this.source.get(this.cursor++);
+                if (this.filter.test(t))
+                    entries.add(t);
+            }
+            if (!entries.isEmpty())
+                this.pages.add(entries);
+        }
+        return page < this.pages.size();
+    }
+
+    /**
+     * @return The entries of the page. The page after it gets resolved too
+     */
+    public List<T> getPage(int page) {
+        if (page < 0)
+            return List.of();
+        this.resolve(page + 1);
+        return page < this.pages.size() ? this.pages.get(page) : List.of();
+    }
+
+    public boolean hasNext(int page) {
+        return this.resolve(page + 1);
+    }
+
+    /**
+     * @return The given page or the last page if there are less pages
+     */
+    public int clampPage(int page) {
+        if (page <= 0 || this.resolve(page))
+            return Math.max(0, page);
+        return Math.max(0, this.pages.size() - 1);
+    }
+}
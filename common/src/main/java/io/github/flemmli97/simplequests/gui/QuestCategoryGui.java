@@ -24,7 +24,6 @@ import net.minecraft.world.inventory.Slot;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
 import net.minecraft.world.item.component.CustomData;
-import net.minecraft.world.item.component.ItemLore;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -64,14 +63,7 @@ public class QuestCategoryGui extends ServerOnlyScreenHandler<Object> {
     }
 
     private ItemStack ofCategory(int i, QuestCategory category, ServerPlayer player) {
-        ItemStack stack = category.getIcon();
-        stack.set(DataComponents.CUSTOM_NAME, category.getName().setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.GOLD)));
-        List<Component> lore = new ArrayList<>();
-        for (String comp : category.description)
-            lore.add(Component.translatable(comp));
-        stack.set(DataComponents.LORE, new ItemLore(lore));
-        CustomData.update(DataComponents.CUSTOM_DATA, stack, t -> t.putString(STACK_NBT_ID, category.id.toString()));
-        return stack;
+        return GuiStackCache.category(player, category);
     }
 
     public static ItemStack emptyFiller() {
@@ -105,7 +97,7 @@ public class QuestCategoryGui extends ServerOnlyScreenHandler<Object> {
                 if (id < this.categories.size()) {
                     ItemStack stack = this.ofCategory(i, categoryMap.get(this.categories.get(id)), serverPlayer);
                     if (!stack.isEmpty()) {
-                        inv.updateStack(i, this.ofCategory(i, categoryMap.get(this.categories.get(id)), serverPlayer));
+                        inv.updateStack(i, stack);
                         id++;
                     }
                 }
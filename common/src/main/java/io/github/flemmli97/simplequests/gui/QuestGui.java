@@ -12,9 +12,7 @@ import net.minecraft.ChatFormatting;
 import net.minecraft.core.Holder;
 import net.minecraft.core.component.DataComponents;
 import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.core.registries.Registries;
 import net.minecraft.network.chat.Component;
-import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.network.chat.Style;
 import net.minecraft.network.protocol.game.ClientboundSoundPacket;
 import net.minecraft.resources.ResourceLocation;
@@ -22,7 +20,6 @@ import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.sounds.SoundEvent;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.sounds.SoundSource;
-import net.minecraft.util.Mth;
 import net.minecraft.world.MenuProvider;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
@@ -32,7 +29,6 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
 import net.minecraft.world.item.component.CustomData;
 import net.minecraft.world.item.component.ItemLore;
-import net.minecraft.world.item.enchantment.Enchantments;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -46,21 +42,19 @@ public class QuestGui extends ServerOnlyScreenHandler<QuestGui.QuestGuiData> {
 
     public static int QUEST_PER_PAGE = 12;
 
-    private int page, maxPages;
-    private List<ResourceLocation> quests;
+    private int page;
+    private PagedView<QuestBase> view;
     private final ServerPlayer player;
 
     private final QuestCategory category;
 
     private final boolean canGoBack;
 
-    private Map<Integer, QuestBase> updateList;
-    private final List<Integer> toremove = new ArrayList<>();
+    private Map<Integer, CooldownSlot> updateList;
 
     protected QuestGui(int syncId, Inventory playerInventory, QuestGui.QuestGuiData data) {
         super(syncId, playerInventory, 6, data);
         this.category = data.category;
-        this.page = data.page;
         this.canGoBack = data.canGoBack;
         if (playerInventory.player instanceof ServerPlayer)
             this.player = (ServerPlayer) playerInventory.player;
@@ -91,33 +85,16 @@ public class QuestGui extends ServerOnlyScreenHandler<QuestGui.QuestGuiData> {
     private ItemStack ofQuest(int i, QuestBase quest, ServerPlayer player) {
         PlayerData data = PlayerData.get(player);
         PlayerData.AcceptType type = data.canAcceptQuest(quest);
-        ItemStack stack = type == PlayerData.AcceptType.ACCEPT ? quest.getIcon() : new ItemStack(Items.BOOK);
-        stack.set(DataComponents.CUSTOM_NAME, quest.getTask(player).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.GOLD)));
-        List<Component> lore = new ArrayList<>();
-        quest.getDescription(player).forEach(c -> lore.add(c.setStyle(c.getStyle().withItalic(false))));
-        if (data.isActive(quest)) {
-            stack.enchant(player.registryAccess().registryOrThrow(Registries.ENCHANTMENT).getHolderOrThrow(Enchantments.UNBREAKING), 1);
-            if (stack.has(DataComponents.STORED_ENCHANTMENTS))
-                stack.set(DataComponents.STORED_ENCHANTMENTS, stack.get(DataComponents.STORED_ENCHANTMENTS).withTooltip(false));
-            else if (stack.has(DataComponents.ENCHANTMENTS))
-                stack.set(DataComponents.ENCHANTMENTS, stack.get(DataComponents.ENCHANTMENTS).withTooltip(false));
-        }
+        GuiStackCache.QuestTemplate template = GuiStackCache.quest(player, quest, type, data.isActive(quest));
         if (type == PlayerData.AcceptType.DELAY) {
-            lore.add(Component.translatable(ConfigHandler.LANG.get(player, type.langKey()), data.formattedCooldown(quest)).withStyle(ChatFormatting.DARK_RED));
-            this.updateList.put(i, quest);
+            this.updateList.put(i, new CooldownSlot(quest, template.cooldownLine(), data.nextCooldownTextChange(quest)));
+            return template.create(cooldownLine(player, data, quest));
         }
-        for (MutableComponent comp : quest.getFormattedGuiTasks(player))
-            lore.add(comp.setStyle(comp.getStyle().withItalic(false)));
-        MutableComponent requirement = switch (type) {
-            case REQUIREMENTS, ONETIME, DAILYFULL, LOCKED ->
-                    Component.translatable(ConfigHandler.LANG.get(player, type.langKey())).withStyle(ChatFormatting.DARK_RED);
-            default -> null;
-        };
-        if (requirement != null)
-            lore.add(requirement.setStyle(requirement.getStyle().withItalic(false)));
-        stack.set(DataComponents.LORE, new ItemLore(lore));
-        CustomData.update(DataComponents.CUSTOM_DATA, stack, t -> t.putString(QuestGui.STACK_NBT_ID, quest.id.toString()));
-        return stack;
+        return template.create(null);
+    }
+
+    private static Component cooldownLine(ServerPlayer player, PlayerData data, QuestBase quest) {
+        return Component.translatable(ConfigHandler.LANG.get(player, PlayerData.AcceptType.DELAY.langKey()), data.formattedCooldown(quest)).withStyle(ChatFormatting.DARK_RED);
     }
 
     public static ItemStack emptyFiller() {
@@ -141,82 +118,55 @@ public class QuestGui extends ServerOnlyScreenHandler<QuestGui.QuestGuiData> {
         this.updateList = new HashMap<>();
         if (!(player instanceof ServerPlayer serverPlayer))
             return;
-        Map<ResourceLocation, QuestBase> questMap = QuestsManager.instance().getQuestsForCategory(data.category());
-        this.quests = new ArrayList<>(questMap.keySet());
-        this.quests.removeIf(res -> {
-            QuestBase quest = questMap.get(res);
+        PlayerData playerData = PlayerData.get(serverPlayer);
+        this.view = new PagedView<>(QuestsManager.instance().getQuestListForCategory(data.category()), quest -> {
             if (quest.visibility != QuestBase.Visibility.DEFAULT)
-                return quest.visibility == QuestBase.Visibility.NEVER;
-            PlayerData.AcceptType type = PlayerData.get(serverPlayer).canAcceptQuest(quest);
-            return type == PlayerData.AcceptType.REQUIREMENTS || type == PlayerData.AcceptType.ONETIME
-                    || type == PlayerData.AcceptType.DAILYFULL || type == PlayerData.AcceptType.LOCKED;
-        });
-        this.maxPages = (this.quests.size() - 1) / QUEST_PER_PAGE;
-        int page = Mth.clamp(data.page, 0, this.maxPages);
-        int id = page * QUEST_PER_PAGE;
-        for (int i = 0; i < 54; i++) {
-            if (i == 0) {
-                ItemStack stack = emptyFiller();
-                if (page > 0) {
-                    stack = new ItemStack(Items.ARROW);
-                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(serverPlayer, "simplequests.gui.previous")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
-                }
-                inv.updateStack(i, stack);
-            } else if (i == 8 && page < this.maxPages) {
-                ItemStack close = new ItemStack(Items.ARROW);
-                close.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(serverPlayer, "simplequests.gui.next")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
-                inv.updateStack(i, close);
-            } else if (data.canGoBack() && i == 45) {
-                ItemStack stack = new ItemStack(Items.TNT);
-                stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(serverPlayer, "simplequests.gui.button.main")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
-                inv.updateStack(i, stack);
-            } else if (i < 9 || i > 44 || i % 9 == 0 || i % 9 == 8)
-                inv.updateStack(i, emptyFiller());
-            else if (i % 9 == 1 || i % 9 == 4 || i % 9 == 7) {
-                if (id < this.quests.size()) {
-                    ItemStack stack = this.ofQuest(i, questMap.get(this.quests.get(id)), serverPlayer);
-                    if (!stack.isEmpty()) {
-                        inv.updateStack(i, this.ofQuest(i, questMap.get(this.quests.get(id)), serverPlayer));
-                        id++;
-                    }
-                }
-            }
-        }
+                return quest.visibility != QuestBase.Visibility.NEVER;
+            PlayerData.AcceptType type = playerData.canAcceptQuest(quest);
+            return type != PlayerData.AcceptType.REQUIREMENTS && type != PlayerData.AcceptType.ONETIME
+                    && type != PlayerData.AcceptType.DAILYFULL && type != PlayerData.AcceptType.LOCKED;
+        }, QUEST_PER_PAGE);
+        this.page = this.view.clampPage(data.page());
+        this.fillPage(serverPlayer, inv, data.canGoBack());
     }
 
-    private void flipPage() {
-        this.updateList.clear();
-        Map<ResourceLocation, QuestBase> questMap = QuestsManager.instance().getQuestsForCategory(this.category);
-        int id = this.page * QUEST_PER_PAGE;
+    private void fillPage(ServerPlayer player, SeparateInv inv, boolean canGoBack) {
+        List<QuestBase> quests = this.view.getPage(this.page);
+        int id = 0;
         for (int i = 0; i < 54; i++) {
             if (i == 0) {
                 ItemStack stack = emptyFiller();
                 if (this.page > 0) {
                     stack = new ItemStack(Items.ARROW);
-                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.gui.previous")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
+                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(player, "simplequests.gui.previous")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
                 }
-                this.slots.get(i).set(stack);
+                updateSlot(inv, i, stack);
             } else if (i == 8) {
                 ItemStack stack = emptyFiller();
-                if (this.page < this.maxPages) {
+                if (this.view.hasNext(this.page)) {
                     stack = new ItemStack(Items.ARROW);
-                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.gui.next")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
+                    stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(player, "simplequests.gui.next")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
                 }
-                this.slots.get(i).set(stack);
-            } else if (this.canGoBack && i == 45) {
+                updateSlot(inv, i, stack);
+            } else if (canGoBack && i == 45) {
                 ItemStack stack = new ItemStack(Items.TNT);
-                stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.gui.button.main")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
-                this.slots.get(i).set(stack);
+                stack.set(DataComponents.CUSTOM_NAME, Component.translatable(ConfigHandler.LANG.get(player, "simplequests.gui.button.main")).setStyle(Style.EMPTY.withItalic(false).applyFormat(ChatFormatting.WHITE)));
+                updateSlot(inv, i, stack);
             } else if (i < 9 || i > 44 || i % 9 == 0 || i % 9 == 8)
-                this.slots.get(i).set(emptyFiller());
+                updateSlot(inv, i, emptyFiller());
             else if (i % 9 == 1 || i % 9 == 4 || i % 9 == 7) {
-                if (id < this.quests.size()) {
-                    this.slots.get(i).set(this.ofQuest(i, questMap.get(this.quests.get(id)), this.player));
+                if (id < quests.size()) {
+                    updateSlot(inv, i, this.ofQuest(i, quests.get(id), player));
                     id++;
                 } else
-                    this.slots.get(i).set(ItemStack.EMPTY);
+                    updateSlot(inv, i, ItemStack.EMPTY);
             }
         }
+    }
+
+    private void flipPage() {
+        this.updateList.clear();
+        this.fillPage(this.player, this.getInventory(), this.canGoBack);
         this.broadcastChanges();
     }
 
@@ -302,29 +252,60 @@ public class QuestGui extends ServerOnlyScreenHandler<QuestGui.QuestGuiData> {
 
     @Override
     protected boolean isRightSlot(int slot) {
-        return (this.page > 0 && slot == 0) || (this.page < this.maxPages && slot == 8) || (this.canGoBack && slot == 45) || (slot < 45 && slot > 8 && (slot % 9 == 1 || slot % 9 == 4 || slot % 9 == 7));
+        return (this.page > 0 && slot == 0) || (slot == 8 && this.view.hasNext(this.page)) || (this.canGoBack && slot == 45) || (slot < 45 && slot > 8 && (slot % 9 == 1 || slot % 9 == 4 || slot % 9 == 7));
     }
 
+    /**
+     * Updates the cooldown of quests. Slots are only updated when the displayed cooldown changes
+     */
     public void update() {
+        if (this.updateList.isEmpty())
+            return;
         PlayerData data = PlayerData.get(this.player);
-        this.toremove.removeIf(i -> {
-            this.slots.get(i).set(this.ofQuest(i, this.updateList.get(i), this.player));
-            this.updateList.remove(i);
-            return true;
-        });
-        this.updateList.forEach((i, q) -> {
+        long time = this.player.level().getGameTime();
+        this.updateList.forEach((i, slot) -> {
+            if (time < slot.nextRefresh)
+                return;
+            slot.nextRefresh = data.nextCooldownTextChange(slot.quest);
             ItemStack stack = this.slots.get(i).getItem();
-            String delay = data.formattedCooldown(q);
             stack.update(DataComponents.LORE, ItemLore.EMPTY, l -> {
                 List<Component> lore = new ArrayList<>(l.lines());
-                lore.set(0, Component.translatable(ConfigHandler.LANG.get(this.player, PlayerData.AcceptType.DELAY.langKey()), delay).withStyle(ChatFormatting.DARK_RED));
+                lore.set(slot.line, cooldownLine(this.player, data, slot.quest));
                 return new ItemLore(lore);
             });
-            if (delay.equals("0s"))
-                this.toremove.add(i);
         });
     }
 
+    /**
+     * Called by the players {@link io.github.flemmli97.simplequests.player.CooldownWheel} when the cooldown of a quest ends
+     */
+    public void onCooldownExpired(QuestBase quest) {
+        Integer slot = null;
+        for (Map.Entry<Integer, CooldownSlot> e : this.updateList.entrySet()) {
+            if (e.getValue().quest == quest) {
+                slot = e.getKey();
+                break;
+            }
+        }
+        if (slot == null)
+            return;
+        this.updateList.remove(slot);
+        this.slots.get(slot).set(this.ofQuest(slot, quest, this.player));
+    }
+
     record QuestGuiData(QuestCategory category, int page, boolean canGoBack) {
     }
+
+    private static class CooldownSlot {
+
+        private final QuestBase quest;
+        private final int line;
+        private long nextRefresh;
+
+        private CooldownSlot(QuestBase quest, int line, long nextRefresh) {
+            this.quest = quest;
+            this.line = line;
+            this.nextRefresh = nextRefresh;
+        }
+    }
 }
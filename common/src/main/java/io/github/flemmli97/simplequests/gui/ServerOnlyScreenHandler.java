@@ -78,6 +78,18 @@ public abstract class ServerOnlyScreenHandler<T> extends AbstractContainerMenu {
 
     protected abstract void fillInventoryWith(Player player, SeparateInv inv, T additionalData);
 
+    protected SeparateInv getInventory() {
+        return this.inventory;
+    }
+
+    /**
+     * Only sets the stack if it differs from the current one so unchanged slots don't get resent
+     */
+    protected static void updateSlot(SeparateInv inv, int slot, ItemStack stack) {
+        if (!ItemStack.matches(inv.getActualStack(slot), stack))
+            inv.updateStack(slot, stack);
+    }
+
     @Override
     public boolean stillValid(Player player) {
         return true;
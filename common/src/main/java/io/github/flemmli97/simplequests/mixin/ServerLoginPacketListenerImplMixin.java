@@ -0,0 +1,25 @@
+package io.github.flemmli97.simplequests.mixin;
+
+import com.mojang.authlib.GameProfile;
+import io.github.flemmli97.simplequests.player.QuestDataStore;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerLoginPacketListenerImpl;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerLoginPacketListenerImpl.class)
+public abstract class ServerLoginPacketListenerImplMixin {
+
+    @Shadow
+    @Final
+    MinecraftServer server;
+
+    @Inject(method = "startClientVerification", at = @At("RETURN"))
+    private void prefetchQuestData(GameProfile profile, CallbackInfo info) {
+        QuestDataStore.prefetch(this.server, profile.getId());
+    }
+}
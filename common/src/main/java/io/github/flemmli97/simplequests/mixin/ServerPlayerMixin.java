@@ -3,6 +3,7 @@ package io.github.flemmli97.simplequests.mixin;
 import com.mojang.authlib.GameProfile;
 import io.github.flemmli97.simplequests.gui.QuestGui;
 import io.github.flemmli97.simplequests.player.PlayerData;
+import io.github.flemmli97.simplequests.player.QuestDataStore;
 import io.github.flemmli97.simplequests.player.SimpleQuestDataGet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
@@ -37,12 +38,12 @@ public abstract class ServerPlayerMixin extends Player implements SimpleQuestDat
 
     @Inject(method = "readAdditionalSaveData", at = @At("RETURN"))
     private void save(CompoundTag compound, CallbackInfo info) {
-        this.simplequestData.load(compound.getCompound("SimpleQuestData"));
+        this.simplequestData.load(QuestDataStore.read((ServerPlayer) (Object) this, compound));
     }
 
     @Inject(method = "tick", at = @At("RETURN"))
     private void guiUpdate(CallbackInfo info) {
-        if (this.containerMenu instanceof QuestGui gui && this.tickCount % 20 == 0) {
+        if (this.containerMenu instanceof QuestGui gui) {
             gui.update();
         }
         this.simplequestData.tick();
@@ -50,7 +51,7 @@ public abstract class ServerPlayerMixin extends Player implements SimpleQuestDat
 
     @Inject(method = "addAdditionalSaveData", at = @At("RETURN"))
     private void read(CompoundTag compound, CallbackInfo info) {
-        compound.put("SimpleQuestData", this.simplequestData.save(this.getServer()));
+        QuestDataStore.write((ServerPlayer) (Object) this, compound, this.simplequestData.save(this.getServer()));
     }
 
     @Override
@@ -0,0 +1,85 @@
+package io.github.flemmli97.simplequests.player;
+
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Hashed timing wheel of quest cooldown expirations keyed on game time.
+ * Each tick only the bucket of that tick is checked instead of every quest on cooldown.
+ * Expirations further away than one rotation stay in their bucket until their time is reached.
+ */
+public class CooldownWheel {
+
+    private static final int SIZE = 256;
+    private static final int MASK = SIZE - 1;
+
+    @SuppressWarnings("unchecked")
+    private final List<Expiry>[] buckets = new List[SIZE];
+    private int count;
+    private long lastTick = Long.MIN_VALUE;
+
+    public void schedule(ResourceLocation quest, long expiry) {
+        // Already passed expirations fire on the next advance
+        long slot = this.lastTick != Long.MIN_VALUE && expiry <= this.lastTick ? this.lastTick + 1 : expiry;
+        int index = (int) (slot & MASK);
+        if (this.buckets[index] == null)
+            this.buckets[index] = new ArrayList<>();
+        this.buckets[index].add(new Expiry(quest, expiry));
+        this.count++;
+    }
+
+    public void clear() {
+        for (List<Expiry> bucket : this.buckets) {
+            if (bucket != null)
+                bucket.clear();
+        }
+        this.count = 0;
+    }
+
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    /**
+     * Advances the wheel to the given time
+     *
+     * @param expired Called once for every quest whose cooldown expired with its expiration time
+     */
+    public void advance(long time, ObjLongConsumer<ResourceLocation> expired) {
+        if (this.count == 0) {
+            this.lastTick = time;
+            return;
+        }
+        long from = this.lastTick == Long.MIN_VALUE ? time - SIZE + 1 : this.lastTick + 1;
+        // If more than one rotation passed every bucket needs to be checked only once
+        if (time - from >= SIZE)
+            from = time - SIZE + 1;
+        List<Expiry> fired = null;
+        for (long t = from; t <= time; t++) {
+            List<Expiry> bucket = this.buckets[(int) (t & MASK)];
+            if (bucket == null || bucket.isEmpty())
+                continue;
+            for (int i = bucket.size() - 1; i >= 0; i--) {
+                Expiry e = bucket.get(i);
+                if (e.time() <= time) {
+                    if (fired == null)
+                        fired = new ArrayList<>();
+                    fired.add(e);
+                    bucket.set(i, bucket.getLast());
+                    bucket.removeLast();
+                }
+            }
+        }
+        this.lastTick = time;
+        if (fired != null) {
+            this.count -= fired.size();
+            fired.forEach(e -> expired.accept(e.quest(), e.time()));
+        }
+    }
+
+    private record Expiry(ResourceLocation quest, long time) {
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.quest.QuestIndex;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Set of quest ids backed by a {@link BitSet}. See {@link IndexedQuestData}
+ */
+public class IndexedIdSet extends IndexedQuestData {
+
+    private final BitSet present = new BitSet();
+    private final Set<ResourceLocation> unindexed = new HashSet<>();
+
+    public IndexedIdSet(Function<QuestIndex, QuestIndex.Ids> space) {
+        super(space);
+    }
+
+    public boolean contains(ResourceLocation id) {
+        return this.contains(this.indexOf(id), id);
+    }
+
+    /**
+     * @param index The index of the id from {@link #indexOf(ResourceLocation)}
+     */
+    public boolean contains(int index, ResourceLocation id) {
+        this.validate();
+        return index >= 0 ? this.present.get(index) : this.unindexed.contains(id);
+    }
+
+    public boolean containsAll(Collection<ResourceLocation> ids) {
+        for (ResourceLocation id : ids) {
+            if (!this.contains(id))
+                return false;
+        }
+        return true;
+    }
+
+    public void add(ResourceLocation id) {
+        this.add(this.validate(), id);
+    }
+
+    private void add(QuestIndex.Ids ids, ResourceLocation id) {
+        int index = ids.indexOf(id);
+        if (index < 0)
+            this.unindexed.add(id);
+        else
+            this.present.set(index);
+    }
+
+    public void remove(ResourceLocation id) {
+        int index = this.indexOf(id);
+        if (index < 0)
+            this.unindexed.remove(id);
+        else
+            this.present.clear(index);
+    }
+
+    public void forEach(Consumer<ResourceLocation> consumer) {
+        QuestIndex.Ids ids = this.validate();
+        for (int i = this.present.nextSetBit(0); i >= 0; i = this.present.nextSetBit(i + 1))
+            consumer.accept(ids.get(i));
+        this.unindexed.forEach(consumer);
+    }
+
+    public int size() {
+        this.validate();
+        return this.present.cardinality() + this.unindexed.size();
+    }
+
+    public void clear() {
+        this.present.clear();
+        this.unindexed.clear();
+    }
+
+    @Override
+    protected void remap(QuestIndex.Ids from, QuestIndex.Ids to) {
+        BitSet present = (BitSet) this.present.clone();
+        Set<ResourceLocation> unindexed = new HashSet<>(this.unindexed);
+        this.clear();
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1))
+            this.add(to, from.get(i));
+        unindexed.forEach(id -> this.add(to, id));
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.quest.QuestIndex;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.BitSet;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Map of quest or category ids to ints backed by an array. Missing ids have a value of 0. See {@link IndexedQuestData}
+ */
+public class IndexedIntMap extends IndexedQuestData {
+
+    private int[] values;
+    private final BitSet present = new BitSet();
+    private final Object2IntMap<ResourceLocation> unindexed = new Object2IntOpenHashMap<>();
+
+    public IndexedIntMap(Function<QuestIndex, QuestIndex.Ids> space) {
+        super(space);
+    }
+
+    public int get(ResourceLocation id) {
+        return this.get(this.indexOf(id), id);
+    }
+
+    /**
+     * @param index The index of the id from {@link #indexOf(ResourceLocation)}
+     */
+    public int get(int index, ResourceLocation id) {
+        this.validate();
+        if (index >= 0)
+            return this.present.get(index) ? this.values[index] : 0;
+        return this.unindexed.getInt(id);
+    }
+
+    public void put(ResourceLocation id, int value) {
+        this.put(this.validate(), id, value);
+    }
+
+    private void put(QuestIndex.Ids ids, ResourceLocation id, int value) {
+        int index = ids.indexOf(id);
+        if (index < 0) {
+            this.unindexed.put(id, value);
+            return;
+        }
+        if (this.values == null)
+            this.values = new int[ids.size()];
+        this.values[index] = value;
+        this.present.set(index);
+    }
+
+    public void increment(ResourceLocation id) {
+        this.put(id, this.get(id) + 1);
+    }
+
+    public void putAll(IndexedIntMap other) {
+        other.forEach(this::put);
+    }
+
+    public void forEach(ObjIntConsumer<ResourceLocation> consumer) {
+        QuestIndex.Ids ids = this.validate();
+        for (int i = this.present.nextSetBit(0); i >= 0; i = this.present.nextSetBit(i + 1))
+            consumer.accept(ids.get(i), this.values[i]);
+        this.unindexed.object2IntEntrySet().forEach(e -> consumer.accept(e.getKey(), e.getIntValue()));
+    }
+
+    public int size() {
+        this.validate();
+        return this.present.cardinality() + this.unindexed.size();
+    }
+
+    public void clear() {
+        this.values = null;
+        this.present.clear();
+        this.unindexed.clear();
+    }
+
+    @Override
+    protected void remap(QuestIndex.Ids from, QuestIndex.Ids to) {
+        int[] values = this.values;
+        BitSet present = (BitSet) this.present.clone();
+        Object2IntMap<ResourceLocation> unindexed = new Object2IntOpenHashMap<>(this.unindexed);
+        this.clear();
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1))
+            this.put(to, from.get(i), values[i]);
+        unindexed.object2IntEntrySet().forEach(e -> this.put(to, e.getKey(), e.getIntValue()));
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.quest.QuestIndex;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.BitSet;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Map of quest ids to longs backed by an array. See {@link IndexedQuestData}
+ */
+public class IndexedLongMap extends IndexedQuestData {
+
+    private long[] values;
+    private final BitSet present = new BitSet();
+    private final Object2LongMap<ResourceLocation> unindexed = new Object2LongOpenHashMap<>();
+
+    public IndexedLongMap(Function<QuestIndex, QuestIndex.Ids> space) {
+        super(space);
+    }
+
+    public boolean containsKey(ResourceLocation id) {
+        return this.containsKey(this.indexOf(id), id);
+    }
+
+    /**
+     * @param index The index of the id from {@link #indexOf(ResourceLocation)}
+     */
+    public boolean containsKey(int index, ResourceLocation id) {
+        this.validate();
+        return index >= 0 ? this.present.get(index) : this.unindexed.containsKey(id);
+    }
+
+    public long get(ResourceLocation id, long defaultValue) {
+        return this.get(this.indexOf(id), id, defaultValue);
+    }
+
+    /**
+     * @param index The index of the id from {@link #indexOf(ResourceLocation)}
+     */
+    public long get(int index, ResourceLocation id, long defaultValue) {
+        this.validate();
+        if (index >= 0)
+            return this.present.get(index) ? this.values[index] : defaultValue;
+        return this.unindexed.getOrDefault(id, defaultValue);
+    }
+
+    public void put(ResourceLocation id, long value) {
+        this.put(this.validate(), id, value);
+    }
+
+    private void put(QuestIndex.Ids ids, ResourceLocation id, long value) {
+        int index = ids.indexOf(id);
+        if (index < 0) {
+            this.unindexed.put(id, value);
+            return;
+        }
+        if (this.values == null)
+            this.values = new long[ids.size()];
+        this.values[index] = value;
+        this.present.set(index);
+    }
+
+    /**
+     * Sets all values to the given value
+     */
+    public void fill(long value) {
+        this.validate();
+        for (int i = this.present.nextSetBit(0); i >= 0; i = this.present.nextSetBit(i + 1))
+            this.values[i] = value;
+        this.unindexed.replaceAll((id, old) -> value);
+    }
+
+    public void forEach(ObjLongConsumer<ResourceLocation> consumer) {
+        QuestIndex.Ids ids = this.validate();
+        for (int i = this.present.nextSetBit(0); i >= 0; i = this.present.nextSetBit(i + 1))
+            consumer.accept(ids.get(i), this.values[i]);
+        this.unindexed.object2LongEntrySet().forEach(e -> consumer.accept(e.getKey(), e.getLongValue()));
+    }
+
+    public int size() {
+        this.validate();
+        return this.present.cardinality() + this.unindexed.size();
+    }
+
+    public void clear() {
+        this.values = null;
+        this.present.clear();
+        this.unindexed.clear();
+    }
+
+    @Override
+    protected void remap(QuestIndex.Ids from, QuestIndex.Ids to) {
+        long[] values = this.values;
+        BitSet present = (BitSet) this.present.clone();
+        Object2LongMap<ResourceLocation> unindexed = new Object2LongOpenHashMap<>(this.unindexed);
+        this.clear();
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1))
+            this.put(to, from.get(i), values[i]);
+        unindexed.object2LongEntrySet().forEach(e -> this.put(to, e.getKey(), e.getLongValue()));
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.datapack.QuestsManager;
+import io.github.flemmli97.simplequests.quest.QuestIndex;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.function.Function;
+
+/**
+ * Base of the per player quest data stored by the indices of the {@link QuestIndex}.
+ * Ids that are not part of the loaded quests, like removed or dynamic quests, are kept separately so they survive reloads.
+ * The data gets remapped to the new indices on the first access after a reload.
+ */
+public abstract class IndexedQuestData {
+
+    private final Function<QuestIndex, QuestIndex.Ids> space;
+    private QuestIndex.Ids ids;
+
+    /**
+     * @param space If the data is stored by quest or category ids
+     */
+    protected IndexedQuestData(Function<QuestIndex, QuestIndex.Ids> space) {
+        this.space = space;
+    }
+
+    /**
+     * @return The index to use for the index based methods or -1 if the id is not part of the loaded quests
+     */
+    public int indexOf(ResourceLocation id) {
+        return this.validate().indexOf(id);
+    }
+
+    protected QuestIndex.Ids validate() {
+        QuestIndex.Ids current = this.space.apply(QuestsManager.instance().getQuestIndex());
+        if (this.ids != current) {
+            QuestIndex.Ids old = this.ids;
+            this.ids = current;
+            if (old != null)
+                this.remap(old, current);
+        }
+        return current;
+    }
+
+    /**
+     * Moves all data to the indices of the new index
+     */
+    protected abstract void remap(QuestIndex.Ids from, QuestIndex.Ids to);
+}
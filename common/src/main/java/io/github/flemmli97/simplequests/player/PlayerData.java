@@ -7,23 +7,27 @@ import io.github.flemmli97.simplequests.api.QuestEntry;
 import io.github.flemmli97.simplequests.api.SimpleQuestAPI;
 import io.github.flemmli97.simplequests.config.ConfigHandler;
 import io.github.flemmli97.simplequests.datapack.QuestsManager;
+import io.github.flemmli97.simplequests.gui.QuestGui;
+import io.github.flemmli97.simplequests.quest.DailyQuestPool;
 import io.github.flemmli97.simplequests.quest.QuestCategory;
+import io.github.flemmli97.simplequests.quest.QuestGraph;
+import io.github.flemmli97.simplequests.quest.QuestIndex;
 import io.github.flemmli97.simplequests.quest.entry.QuestEntryImpls;
 import io.github.flemmli97.simplequests.quest.types.Quest;
 import io.github.flemmli97.simplequests.quest.types.QuestBase;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntArrayTag;
 import net.minecraft.nbt.ListTag;
-import net.minecraft.nbt.StringTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.sounds.SoundEvents;
-import net.minecraft.util.Mth;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.item.ItemStack;
 import org.jetbrains.annotations.Nullable;
@@ -32,9 +36,10 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -45,25 +50,87 @@ public class PlayerData {
 
     public static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    /**
+     * How long results depending on the unlock condition of a quest are cached
+     */
+    private static final int UNLOCK_CONDITION_TTL = 20;
+
+    /**
+     * Flags for the tracker maps that changed since the last save
+     */
+    private static final int COOLDOWNS = 1;
+    private static final int DAILY = 2;
+    private static final int DAILY_CATEGORY = 4;
+    private static final int FINISHED = 8;
+    private static final int UNLOCKED = 16;
+    private static final int ALL = COOLDOWNS | DAILY | DAILY_CATEGORY | FINISHED | UNLOCKED;
+
+    /**
+     * Version 1 saved the trackers with the quest ids as keys.
+     * Version 2 saves the ids once in a palette and the trackers as arrays of indices and values
+     */
+    private static final int SAVE_VERSION = 2;
+
     private final ServerPlayer player;
     private List<QuestProgress> currentQuests = new ArrayList<>();
-    private Map<ResourceLocation, Long> cooldownTracker = new HashMap<>();
+    /**
+     * The trackers are stored by the indices of the {@link QuestIndex} of the loaded quests
+     */
+    private IndexedLongMap cooldownTracker = new IndexedLongMap(QuestIndex::quests);
+    private final CooldownWheel cooldownWheel = new CooldownWheel();
+    /**
+     * Progress with tickable entries that have no {@link io.github.flemmli97.simplequests.api.TickableArea}.
+     * Entries with an area are only ticked while the {@link SpatialEntryIndex} reports them in range
+     */
     private final List<QuestProgress> tickables = new ArrayList<>();
+    private final List<QuestProgress> ticking = new ArrayList<>();
+    private final QuestEntryIndex entryIndex = new QuestEntryIndex();
+    private final SpatialEntryIndex spatialIndex = new SpatialEntryIndex();
+    private final QuestEntryIndex.Matches matches = new QuestEntryIndex.Matches();
+    private int triggerDepth;
 
-    private Set<ResourceLocation> unlockTracker = new HashSet<>();
+    private IndexedIdSet unlockTracker = new IndexedIdSet(QuestIndex::quests);
+    /**
+     * Quests whose parents are all unlocked. Updated incrementally through the {@link QuestGraph} when the unlock tracker changes
+     */
+    private final Set<ResourceLocation> parentsUnlocked = new HashSet<>();
+    private final Set<ResourceLocation> newlyAvailable = new HashSet<>();
+    private QuestGraph unlockGraph;
 
     private long resetTick = -1;
 
     private LocalDateTime questTrackerTime = LocalDateTime.now();
+    private long resetEpoch = Long.MIN_VALUE;
     private long dailySeed;
     private final Random questRandom = new Random();
-    private final Map<ResourceLocation, Integer> dailyQuestsTracker = new HashMap<>();
-    private final Map<ResourceLocation, Integer> dailyQuestsCategoryTracker = new HashMap<>();
+    private final IndexedIntMap dailyQuestsTracker = new IndexedIntMap(QuestIndex::quests);
+    private final IndexedIntMap dailyQuestsCategoryTracker = new IndexedIntMap(QuestIndex::categories);
 
-    private final Map<ResourceLocation, Integer> finishedQuestsTracker = new HashMap<>();
+    private final IndexedIntMap finishedQuestsTracker = new IndexedIntMap(QuestIndex::quests);
 
     private int interactionCooldown;
 
+    private final Map<ResourceLocation, CachedAcceptType> acceptCache = new HashMap<>();
+
+    /**
+     * The tags of the tracker maps from the last save. Reused as long as the map didn't change.
+     * They are shared between saves so they must not be modified
+     */
+    private int dirty = ALL;
+    private QuestIdPalette palette = new QuestIdPalette();
+    private CompoundTag savedCooldowns, savedDaily, savedDailyCategory, savedFinished;
+    private IntArrayTag savedUnlocked;
+
+    /**
+     * Players with buffered events. They get processed at the end of the server tick, so the buffers never hold entities past the tick they died in
+     */
+    private static final Set<PlayerData> BUFFERED = new LinkedHashSet<>();
+    /**
+     * Buffered events for when {@link io.github.flemmli97.simplequests.config.Config#coalesceQuestEvents} is enabled
+     */
+    private final Map<EntityType<?>, List<LivingEntity>> bufferedKills = new LinkedHashMap<>();
+    private final List<Pair<ItemStack, Integer>> bufferedCrafts = new ArrayList<>();
+
     /**
      * Indicator that client has the mod installed
      */
@@ -97,7 +164,7 @@ public class PlayerData {
             return false;
         }
         QuestProgress prog = new QuestProgress(quest, this, subQuestIndex);
-        this.currentQuests.add(prog);
+        this.addProgress(prog);
         if (!prog.getQuest().category.isSilent)
             this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.accept"), prog.formattedQuest(this.player)).withStyle(ChatFormatting.DARK_GREEN));
         return true;
@@ -127,7 +194,7 @@ public class PlayerData {
                 }
             }
         }
-        this.currentQuests.removeAll(completed);
+        this.removeAllProgress(completed);
         return completion;
     }
 
@@ -135,88 +202,180 @@ public class PlayerData {
         return this.tryFullFill(clss, pred, onFullfill, "");
     }
 
+    /**
+     * Triggers the quests of this player. If nothing matched and no quest completed this does not allocate
+     * and the returned map is the shared empty map.
+     */
+    @SuppressWarnings("unchecked")
     public <T extends QuestEntry> Map<ResourceLocation, QuestCompletionState> tryFullFill(Class<T> clss, SimpleQuestAPI.QuestEntryPredicate<T> pred, BiConsumer<QuestProgress, Pair<String, T>> onFullfill, String trigger) {
-        List<QuestProgress> completed = new ArrayList<>();
-        Map<ResourceLocation, QuestCompletionState> completion = new HashMap<>();
-        this.currentQuests.forEach(prog -> {
-            Set<Pair<String, T>> fulfilled = prog.tryFullFill(clss, pred);
-            if (!fulfilled.isEmpty()) {
-                this.player.level().playSound(null, this.player.getX(), this.player.getY(), this.player.getZ(), SoundEvents.PLAYER_LEVELUP, this.player.getSoundSource(), 2 * 0.75f, 1.0f);
-                fulfilled.forEach(p -> onFullfill.accept(prog, p));
-            }
-            QuestCompletionState state = prog.tryComplete(this.getPlayer(), trigger);
-            if (state == QuestCompletionState.COMPLETE) {
-                this.completeQuest(prog);
-                completed.add(prog);
-                completion.put(prog.getQuest().id, QuestCompletionState.COMPLETE);
-            } else if (state == QuestCompletionState.PARTIAL) {
-                completion.put(prog.getQuest().id, QuestCompletionState.PARTIAL);
+        // Callbacks can trigger quests again so nested calls get their own buffer
+        QuestEntryIndex.Matches matches = this.triggerDepth++ == 0 ? this.matches : new QuestEntryIndex.Matches();
+        try {
+            this.entryIndex.tryFullFill(clss, pred, matches);
+            List<QuestProgress> completed = null;
+            Map<ResourceLocation, QuestCompletionState> completion = null;
+            // Indexed loop since onFullfill or completing a quest can accept new quests
+            for (int i = 0; i < this.currentQuests.size(); i++) {
+                QuestProgress prog = this.currentQuests.get(i);
+                boolean fulfilled = false;
+                for (int m = 0; m < matches.size(); m++) {
+                    if (matches.progress(m) != prog)
+                        continue;
+                    if (!fulfilled) {
+                        this.player.level().playSound(null, this.player.getX(), this.player.getY(), this.player.getZ(), SoundEvents.PLAYER_LEVELUP, this.player.getSoundSource(), 2 * 0.75f, 1.0f);
+                        fulfilled = true;
+                    }
+                    onFullfill.accept(prog, Pair.of(matches.name(m), (T) matches.entry(m)));
+                }
+                // Nothing changed for this quest so it can't complete
+                if (!fulfilled && trigger.isEmpty() && !prog.allTasksDone())
+                    continue;
+                QuestCompletionState state = prog.tryComplete(this.getPlayer(), trigger);
+                if (state == QuestCompletionState.COMPLETE) {
+                    this.completeQuest(prog);
+                    if (completed == null)
+                        completed = new ArrayList<>();
+                    completed.add(prog);
+                    if (completion == null)
+                        completion = new HashMap<>();
+                    completion.put(prog.getQuest().id, QuestCompletionState.COMPLETE);
+                } else if (state == QuestCompletionState.PARTIAL) {
+                    if (completion == null)
+                        completion = new HashMap<>();
+                    completion.put(prog.getQuest().id, QuestCompletionState.PARTIAL);
+                }
             }
-        });
-        this.currentQuests.removeAll(completed);
-        return completion;
+            if (completed != null)
+                this.removeAllProgress(completed);
+            return completion == null ? Map.of() : completion;
+        } finally {
+            matches.clear();
+            this.triggerDepth--;
+        }
+    }
+
+    /**
+     * @return If the player has any unfinished quest entry of the given type
+     */
+    public boolean hasActiveEntry(Class<? extends QuestEntry> clss) {
+        return this.entryIndex.hasEntries(clss);
     }
 
     public void onKill(LivingEntity entity) {
+        if (!this.hasActiveEntry(QuestEntryImpls.KillEntry.class))
+            return;
+        if (ConfigHandler.CONFIG.coalesceQuestEvents) {
+            this.bufferedKills.computeIfAbsent(entity.getType(), t -> new ArrayList<>()).add(entity);
+            BUFFERED.add(this);
+            return;
+        }
         this.tryFullFill(QuestEntryImpls.KillEntry.class, QuestProgress.createKillPredicate(this.player, entity),
-                (prog, p) -> {
-                    if (!prog.getQuest().category.isSilent)
-                        this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.kill"), p.getSecond().translation(this.player)).withStyle(ChatFormatting.DARK_GREEN));
-                });
+                (prog, p) -> this.notifyFulfilled(prog, p.getSecond(), "simplequests.kill"));
     }
 
     public void onFished(Collection<ItemStack> loot) {
+        if (!this.hasActiveEntry(QuestEntryImpls.FishingEntry.class))
+            return;
         this.tryFullFill(QuestEntryImpls.FishingEntry.class, QuestProgress.createFishingPredicate(this.player, loot),
-                (prog, p) -> {
-                    if (!prog.getQuest().category.isSilent)
-                        this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.kill"), p.getSecond().translation(this.player)).withStyle(ChatFormatting.DARK_GREEN));
-                });
+                (prog, p) -> this.notifyFulfilled(prog, p.getSecond(), "simplequests.kill"));
     }
 
     public void onInteractWith(Entity entity) {
-        if (this.interactionCooldown > 0)
+        if (this.interactionCooldown > 0 || !this.hasActiveEntry(QuestEntryImpls.EntityInteractEntry.class))
             return;
         this.interactionCooldown = 2;
         this.tryFullFill(QuestEntryImpls.EntityInteractEntry.class, QuestProgress.createInteractionPredicate(this.player, entity),
-                (prog, p) -> {
-                    if (!prog.getQuest().category.isSilent)
-                        this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.task"), p.getSecond().translation(this.player)).withStyle(ChatFormatting.DARK_GREEN));
-                });
+                (prog, p) -> this.notifyFulfilled(prog, p.getSecond(), "simplequests.task"));
     }
 
     public void onBlockInteract(BlockPos pos, boolean use) {
+        if (!this.hasActiveEntry(QuestEntryImpls.BlockInteractEntry.class))
+            return;
         this.tryFullFill(QuestEntryImpls.BlockInteractEntry.class, QuestProgress.createBlockInteractionPredicate(this.player, pos, use),
-                (prog, p) -> {
-                    if (!prog.getQuest().category.isSilent)
-                        this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.task"), p.getSecond().translation(this.player)).withStyle(ChatFormatting.DARK_GREEN));
-                });
+                (prog, p) -> this.notifyFulfilled(prog, p.getSecond(), "simplequests.task"));
     }
 
     public void onItemCrafted(ItemStack stack, int amount, String trigger) {
+        // With a trigger quests might complete even if nothing gets crafted
+        if (trigger.isEmpty() && !this.hasActiveEntry(QuestEntryImpls.CraftingEntry.class))
+            return;
+        if (trigger.isEmpty() && ConfigHandler.CONFIG.coalesceQuestEvents) {
+            for (int i = 0; i < this.bufferedCrafts.size(); i++) {
+                Pair<ItemStack, Integer> crafted = this.bufferedCrafts.get(i);
+                if (crafted.getFirst().getCount() == stack.getCount() && ItemStack.isSameItemSameComponents(crafted.getFirst(), stack)) {
+                    this.bufferedCrafts.set(i, Pair.of(crafted.getFirst(), crafted.getSecond() + amount));
+                    return;
+                }
+            }
+            this.bufferedCrafts.add(Pair.of(stack.copy(), amount));
+            BUFFERED.add(this);
+            return;
+        }
         this.tryFullFill(QuestEntryImpls.CraftingEntry.class, QuestProgress.createCraftingPredicate(this.player, stack, amount),
-                (prog, p) -> {
-                    if (!prog.getQuest().category.isSilent)
-                        this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.task"), p.getSecond().translation(this.player)).withStyle(ChatFormatting.DARK_GREEN));
-                }, trigger);
+                (prog, p) -> this.notifyFulfilled(prog, p.getSecond(), "simplequests.task"), trigger);
+    }
+
+    /**
+     * Processes the buffered events of all players. Called at the end of the server tick
+     */
+    public static void flushAllBufferedEvents() {
+        if (BUFFERED.isEmpty())
+            return;
+        // Copy since completing quests can cause further events. These get processed next tick
+        List<PlayerData> buffered = new ArrayList<>(BUFFERED);
+        BUFFERED.clear();
+        buffered.forEach(PlayerData::flushBufferedEvents);
+    }
+
+    /**
+     * Process all events buffered during this tick at once.
+     * Each fulfilled entry only sends one message and sound regardless of how many events contributed to it
+     */
+    private void flushBufferedEvents() {
+        BUFFERED.remove(this);
+        if (!this.bufferedKills.isEmpty()) {
+            // Copy since completing quests can cause further kills
+            Map<EntityType<?>, List<LivingEntity>> kills = new LinkedHashMap<>(this.bufferedKills);
+            this.bufferedKills.clear();
+            this.tryFullFill(QuestEntryImpls.KillEntry.class, QuestProgress.createKillPredicate(this.player, kills),
+                    (prog, p) -> this.notifyFulfilled(prog, p.getSecond(), "simplequests.kill"));
+        }
+        if (!this.bufferedCrafts.isEmpty()) {
+            List<Pair<ItemStack, Integer>> crafts = new ArrayList<>(this.bufferedCrafts);
+            this.bufferedCrafts.clear();
+            this.tryFullFill(QuestEntryImpls.CraftingEntry.class, QuestProgress.createCraftingPredicate(this.player, crafts),
+                    (prog, p) -> this.notifyFulfilled(prog, p.getSecond(), "simplequests.task"));
+        }
+    }
+
+    private void notifyFulfilled(QuestProgress prog, QuestEntry entry, String langKey) {
+        if (!prog.getQuest().category.isSilent)
+            this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, langKey), entry.translation(this.player)).withStyle(ChatFormatting.DARK_GREEN));
     }
 
     private void completeQuest(QuestProgress prog) {
+        this.acceptCache.clear();
+        this.dirty |= COOLDOWNS | DAILY | FINISHED | UNLOCKED;
         prog.getQuest().onComplete(this.player);
         prog.getCompletionID().forEach(id -> {
             this.cooldownTracker.put(id, this.player.level().getGameTime());
+            this.scheduleCooldown(id, this.player.level().getGameTime());
             this.unlockTracker.add(id);
-            this.dailyQuestsTracker.compute(id, (key, i) -> i == null ? 1 : ++i);
-            this.finishedQuestsTracker.compute(id, (key, i) -> i == null ? 1 : ++i);
+            this.onUnlocked(id);
+            this.dailyQuestsTracker.increment(id);
+            this.finishedQuestsTracker.increment(id);
         });
-        this.dailyQuestsTracker.compute(prog.getQuest().category.id, (key, i) -> i == null ? 1 : ++i);
+        this.dailyQuestsTracker.increment(prog.getQuest().category.id);
         this.player.level().playSound(null, this.player.getX(), this.player.getY(), this.player.getZ(), SoundEvents.PLAYER_LEVELUP, this.player.getSoundSource(), 2 * 0.75f, 1.0f);
         if (!prog.getQuest().category.isSilent)
             this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.finish"), prog.getTask(this.player)).withStyle(ChatFormatting.DARK_GREEN));
         if (!prog.getQuest().neededParentQuests.isEmpty() && prog.getQuest().redoParent) {
             prog.getQuest().neededParentQuests.forEach(res -> {
                 Quest quest = QuestsManager.instance().getActualQuests(res);
-                if (quest != null)
+                if (quest != null) {
                     this.unlockTracker.remove(quest.id);
+                    this.onLocked(quest.id);
+                }
             });
         }
     }
@@ -226,6 +385,7 @@ public class PlayerData {
     }
 
     public void reset(ResourceLocation res, boolean forced, boolean sendMsg) {
+        this.acceptCache.clear();
         if (this.currentQuests.isEmpty()) {
             if (sendMsg)
                 this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.current.no")).withStyle(ChatFormatting.DARK_RED));
@@ -252,6 +412,7 @@ public class PlayerData {
             if (sendMsg)
                 this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.reset"), prog.getTask(this.player)).withStyle(ChatFormatting.DARK_RED));
             this.currentQuests.remove(prog);
+            this.entryIndex.remove(prog);
             this.removeTickableQuestProgress(prog);
             prog.getQuest().onReset(this.player);
         }
@@ -274,23 +435,45 @@ public class PlayerData {
         return this.currentQuests.stream().filter(p -> p.getQuest().category.id.equals(category.id)).toList();
     }
 
+    /**
+     * The result is cached until something it depends on changes. Results depending on a cooldown are cached
+     * till the cooldown expires and results of quests with an unlock condition only for a short time
+     */
     public AcceptType canAcceptQuest(QuestBase quest) {
-        if (quest.isDailyQuest || quest.needsUnlock && !this.unlockTracker.contains(quest.id)) {
+        long time = this.player.level().getGameTime();
+        CachedAcceptType cached = this.acceptCache.get(quest.id);
+        // Quests get replaced on reload so compare by reference
+        if (cached != null && cached.quest() == quest && time < cached.validUntil())
+            return cached.type();
+        AcceptType type = this.computeAcceptType(quest);
+        long validUntil = Long.MAX_VALUE;
+        if (type == AcceptType.DELAY)
+            validUntil = this.cooldownTracker.get(quest.id, 0) + quest.repeatDelay + 1;
+        if (quest.hasUnlockCondition())
+            validUntil = Math.min(validUntil, time + UNLOCK_CONDITION_TTL);
+        this.acceptCache.put(quest.id, new CachedAcceptType(quest, type, validUntil));
+        return type;
+    }
+
+    private AcceptType computeAcceptType(QuestBase quest) {
+        // Looked up once for all quest trackers
+        int index = this.cooldownTracker.indexOf(quest.id);
+        if (quest.isDailyQuest || quest.needsUnlock && !this.unlockTracker.contains(index, quest.id)) {
             return AcceptType.LOCKED;
         }
         if (!quest.isUnlocked(this.player)
-                || (!quest.neededParentQuests.isEmpty() && !this.unlockTracker.containsAll(quest.neededParentQuests))) {
+                || !this.hasParentsUnlocked(quest)) {
             return AcceptType.REQUIREMENTS;
         }
-        if (quest.repeatDaily > 0 && this.dailyQuestsTracker.getOrDefault(quest.id, 0) >= quest.repeatDaily)
+        if (quest.repeatDaily > 0 && this.dailyQuestsTracker.get(index, quest.id) >= quest.repeatDaily)
             return AcceptType.DAILYFULL;
-        if (quest.category.maxDaily > 0 && this.dailyQuestsCategoryTracker.getOrDefault(quest.category.id, 0) >= quest.category.maxDaily)
+        if (quest.category.maxDaily > 0 && this.dailyQuestsCategoryTracker.get(quest.category.id) >= quest.category.maxDaily)
             return AcceptType.DAILYFULL;
-        //One time quests
-        if (quest.repeatDelay < 0 && this.cooldownTracker.containsKey(quest.id))
-            return AcceptType.ONETIME;
-        if (this.cooldownTracker.containsKey(quest.id)) {
-            return (quest.repeatDelay == 0 || Math.abs(this.player.level().getGameTime() - this.cooldownTracker.get(quest.id)) > quest.repeatDelay) ? AcceptType.ACCEPT : AcceptType.DELAY;
+        if (this.cooldownTracker.containsKey(index, quest.id)) {
+            //One time quests
+            if (quest.repeatDelay < 0)
+                return AcceptType.ONETIME;
+            return (quest.repeatDelay == 0 || Math.abs(this.player.level().getGameTime() - this.cooldownTracker.get(index, quest.id, 0)) > quest.repeatDelay) ? AcceptType.ACCEPT : AcceptType.DELAY;
         }
         return AcceptType.ACCEPT;
     }
@@ -300,81 +483,305 @@ public class PlayerData {
     }
 
     public void addTickableProgress(QuestProgress progress) {
-        if (!this.tickables.contains(progress))
+        boolean unbounded = progress.hasUnboundedTickables();
+        if (unbounded && !this.tickables.contains(progress))
             this.tickables.add(progress);
+        else if (!unbounded)
+            this.tickables.remove(progress);
+        this.spatialIndex.remove(progress);
+        this.spatialIndex.add(progress);
     }
 
     public void removeTickableQuestProgress(QuestProgress progress) {
         this.tickables.remove(progress);
+        this.spatialIndex.remove(progress);
+    }
+
+    /**
+     * Updates the entry index for the given progress. Needs to be called if the entries of the progress change
+     */
+    public void updateEntryIndex(QuestProgress progress) {
+        if (this.currentQuests.contains(progress))
+            this.entryIndex.update(progress);
+    }
+
+    /**
+     * Binds the current quests to the quests of the last reload. Quests that no longer exist get removed
+     * and the cooldowns are scheduled again with the new repeat delays
+     *
+     * @param counts Gets incremented for each result
+     */
+    public void rebindQuests(Map<QuestProgress.RebindResult, Integer> counts) {
+        List<QuestProgress> dropped = new ArrayList<>();
+        for (QuestProgress prog : this.currentQuests) {
+            QuestProgress.RebindResult result = prog.rebind(this);
+            counts.merge(result, 1, Integer::sum);
+            if (result == QuestProgress.RebindResult.DROPPED)
+                dropped.add(prog);
+        }
+        this.removeAllProgress(dropped);
+        this.acceptCache.clear();
+        // Repeat delays might have changed with the reload
+        this.rescheduleCooldowns();
+    }
+
+    private void addProgress(QuestProgress progress) {
+        this.currentQuests.add(progress);
+        this.entryIndex.add(progress);
+    }
+
+    private void removeAllProgress(Collection<QuestProgress> progresses) {
+        if (progresses.isEmpty())
+            return;
+        this.currentQuests.removeAll(progresses);
+        this.tickables.removeAll(progresses);
+        progresses.forEach(p -> {
+            this.entryIndex.remove(p);
+            this.spatialIndex.remove(p);
+        });
     }
 
     public void unlockQuest(ResourceLocation quest) {
+        this.dirty |= UNLOCKED;
         this.unlockTracker.add(quest);
+        this.onUnlocked(quest);
+        this.acceptCache.clear();
     }
 
     public void lockQuest(ResourceLocation quest) {
+        this.dirty |= UNLOCKED;
         this.unlockTracker.remove(quest);
+        this.onLocked(quest);
+        this.acceptCache.clear();
+    }
+
+    private boolean hasParentsUnlocked(QuestBase quest) {
+        if (quest.neededParentQuests.isEmpty())
+            return true;
+        // Dynamic quests are not part of the graph
+        if (QuestsManager.instance().getAllQuests().get(quest.id) != quest)
+            return this.unlockTracker.containsAll(quest.neededParentQuests);
+        this.validateUnlockGraph();
+        return this.parentsUnlocked.contains(quest.id);
+    }
+
+    /**
+     * Recalculates the quests with unlocked parents if the quests got reloaded or the unlock tracker got replaced
+     */
+    private void validateUnlockGraph() {
+        QuestGraph graph = QuestsManager.instance().getQuestGraph();
+        if (this.unlockGraph == graph)
+            return;
+        this.unlockGraph = graph;
+        this.parentsUnlocked.clear();
+        this.newlyAvailable.clear();
+        for (ResourceLocation quest : graph.getQuestsWithParents()) {
+            if (this.unlockTracker.containsAll(graph.getParents(quest)))
+                this.parentsUnlocked.add(quest);
+        }
+    }
+
+    private void onUnlocked(ResourceLocation quest) {
+        if (this.unlockGraph == null)
+            return;
+        for (ResourceLocation dependent : this.unlockGraph.getDependents(quest)) {
+            if (!this.parentsUnlocked.contains(dependent) && this.unlockTracker.containsAll(this.unlockGraph.getParents(dependent))) {
+                this.parentsUnlocked.add(dependent);
+                this.newlyAvailable.add(dependent);
+            }
+        }
+    }
+
+    private void onLocked(ResourceLocation quest) {
+        if (this.unlockGraph == null)
+            return;
+        for (ResourceLocation dependent : this.unlockGraph.getDependents(quest)) {
+            this.parentsUnlocked.remove(dependent);
+            this.newlyAvailable.remove(dependent);
+        }
+    }
+
+    /**
+     * Notifies about the quests that became available through their parents since the last tick
+     */
+    private void notifyNewlyAvailable() {
+        if (this.newlyAvailable.isEmpty())
+            return;
+        List<ResourceLocation> available = List.copyOf(this.newlyAvailable);
+        this.newlyAvailable.clear();
+        for (ResourceLocation id : available) {
+            QuestBase quest = QuestsManager.instance().getAllQuests().get(id);
+            if (quest == null)
+                continue;
+            this.acceptCache.remove(id);
+            if (ConfigHandler.CONFIG.notifyQuestAvailable && !quest.category.isSilent && this.canAcceptQuest(quest) == AcceptType.ACCEPT)
+                this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.available"), quest.getTask(this.player)).withStyle(ChatFormatting.DARK_GREEN));
+        }
     }
 
     public int getTimesCompleted(ResourceLocation quest) {
-        return this.finishedQuestsTracker.getOrDefault(quest, 0);
+        return this.finishedQuestsTracker.get(quest);
     }
 
     public void tickTickableQuests(String trigger) {
-        List<QuestProgress> completed = new ArrayList<>();
-        this.tickables.removeIf(prog -> {
-            Pair<Boolean, Set<QuestEntry>> fulfilled = prog.tickProgress(this);
-            if (!fulfilled.getSecond().isEmpty()) {
+        this.spatialIndex.update(this.player);
+        List<QuestProgress> inRange = this.spatialIndex.inRange();
+        if (this.tickables.isEmpty() && inRange.isEmpty())
+            return;
+        // Offset by the player so entries with the same interval don't all get checked on the same tick
+        long tick = this.player.getServer().getTickCount() + (this.player.getUUID().hashCode() & Integer.MAX_VALUE);
+        // Only reuse the list if this isn't called from within a tick
+        List<QuestProgress> ticking = this.ticking.isEmpty() ? this.ticking : new ArrayList<>();
+        ticking.addAll(this.tickables);
+        for (QuestProgress prog : inRange) {
+            if (!ticking.contains(prog))
+                ticking.add(prog);
+        }
+        List<QuestProgress> completed = null;
+        for (QuestProgress prog : ticking) {
+            Set<QuestEntry> fulfilled = prog.tickProgress(this, tick);
+            if (!fulfilled.isEmpty()) {
                 this.player.level().playSound(null, this.player.getX(), this.player.getY(), this.player.getZ(), SoundEvents.PLAYER_LEVELUP, this.player.getSoundSource(), 2 * 0.75f, 1.0f);
-                fulfilled.getSecond().forEach(e -> {
+                fulfilled.forEach(e -> {
                     if (!prog.getQuest().category.isSilent)
                         this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.task"), e.translation(this.player)).withStyle(ChatFormatting.DARK_GREEN));
                 });
             }
-            if (prog.tryComplete(this.getPlayer(), trigger) == QuestCompletionState.COMPLETE) {
+            // Without a change or a trigger the quest can't complete
+            if ((!fulfilled.isEmpty() || !trigger.isEmpty()) && prog.tryComplete(this.getPlayer(), trigger) == QuestCompletionState.COMPLETE) {
                 this.completeQuest(prog);
+                if (completed == null)
+                    completed = new ArrayList<>();
                 completed.add(prog);
-                return true;
+            } else if (!prog.hasTickables()) {
+                this.removeTickableQuestProgress(prog);
+            } else if (!fulfilled.isEmpty()) {
+                // Updates the lists for the remaining entries
+                this.addTickableProgress(prog);
             }
-            return fulfilled.getFirst();
-        });
-        this.currentQuests.removeAll(completed);
+        }
+        ticking.clear();
+        if (completed != null)
+            this.removeAllProgress(completed);
     }
 
     public void tick() {
         --this.interactionCooldown;
+        this.cooldownWheel.advance(this.player.level().getGameTime(), this::onCooldownExpired);
+        // Kept up to date so unlocking quests can tell which quests become available
+        this.validateUnlockGraph();
+        this.notifyNewlyAvailable();
         this.tickTickableQuests("");
+        // Players that were offline during the reset or joined while it was running
+        if (!QuestResetClock.isCurrent(this.resetEpoch))
+            this.rollover(QuestResetClock.latestEpoch());
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        if (this.questTrackerTime == null || this.questTrackerTime.getDayOfYear() != now.getDayOfYear()) {
-            this.dailySeed = this.player.getRandom().nextLong();
-            this.questTrackerTime = now;
-            this.dailyQuestsTracker.forEach((r, i) -> {
-                Quest quest = QuestsManager.instance().getActualQuests(r);
-                if (quest != null && quest.isDailyQuest)
-                    this.reset(r, true, false);
-            });
-            this.dailyQuestsTracker.clear();
-            this.dailyQuestsCategoryTracker.clear();
-            List<Quest> daily = QuestsManager.instance().getDailyQuests().stream().toList();
+    /**
+     * Resets the daily quests of this player for the given reset period. See {@link QuestResetClock}
+     *
+     * @return If the player got rolled over
+     */
+    public boolean rollover(long epoch) {
+        if (this.resetEpoch == epoch)
+            return false;
+        this.resetEpoch = epoch;
+        this.acceptCache.clear();
+        this.dirty |= DAILY | DAILY_CATEGORY;
+        this.dailySeed = this.player.getRandom().nextLong();
+        this.questTrackerTime = LocalDateTime.now();
+        this.dailyQuestsTracker.forEach((r, i) -> {
+            Quest quest = QuestsManager.instance().getActualQuests(r);
+            if (quest != null && quest.isDailyQuest)
+                this.reset(r, true, false);
+        });
+        this.dailyQuestsTracker.clear();
+        this.dailyQuestsCategoryTracker.clear();
+        for (Quest quest : this.selectDailyQuests()) {
+            this.addProgress(new QuestProgress(quest, this, 0));
+            this.dailyQuestsTracker.put(quest.id, 1);
+        }
+        return true;
+    }
+
+    /**
+     * Selects the daily quests of all categories. Categories with a {@link QuestCategory#dailyAmount} get sampled on their own first,
+     * then {@link io.github.flemmli97.simplequests.config.Config#dailyQuestAmount} limits the total
+     */
+    private List<Quest> selectDailyQuests() {
+        QuestsManager manager = QuestsManager.instance();
+        int amount = ConfigHandler.CONFIG.dailyQuestAmount;
+        if (manager.categories().stream().noneMatch(c -> c.dailyAmount >= 0)) {
             this.questRandom.setSeed(this.dailySeed);
-            Collections.shuffle(daily, this.questRandom);
-            int amount = ConfigHandler.CONFIG.dailyQuestAmount == -1 ? daily.size() : Mth.clamp(ConfigHandler.CONFIG.dailyQuestAmount, 0, daily.size());
-            for (int i = 0; i < amount; i++) {
-                Quest quest = daily.get(i);
-                this.currentQuests.add(new QuestProgress(quest, this, 0));
-                this.dailyQuestsTracker.put(quest.id, 1);
-            }
+            return manager.getDailyPool().sample(this.questRandom, amount);
         }
+        List<Quest> candidates = new ArrayList<>();
+        for (QuestCategory category : manager.categories()) {
+            DailyQuestPool pool = manager.getDailyPool(category);
+            if (pool.isEmpty())
+                continue;
+            // Seeded per category so adding or removing a category doesn't change the selection of the others
+            this.questRandom.setSeed(this.dailySeed ^ category.id.hashCode());
+            candidates.addAll(pool.sample(this.questRandom, category.dailyAmount));
+        }
+        if (amount < 0 || amount >= candidates.size())
+            return candidates;
+        this.questRandom.setSeed(this.dailySeed);
+        return new DailyQuestPool(candidates).sample(this.questRandom, amount);
     }
 
     public long getRandomSeed(@Nullable ResourceLocation quest) {
-        long time = this.cooldownTracker.getOrDefault(quest, 0L);
+        long time = quest == null ? 0 : this.cooldownTracker.get(quest, 0);
         return this.dailySeed + time;
     }
 
+    private void scheduleCooldown(ResourceLocation id, long completedTime) {
+        QuestBase quest = QuestsManager.instance().getAllQuests().get(id);
+        if (quest != null && quest.repeatDelay > 0)
+            this.cooldownWheel.schedule(id, completedTime + quest.repeatDelay + 1);
+    }
+
+    private void rescheduleCooldowns() {
+        this.cooldownWheel.clear();
+        long time = this.player.level().getGameTime();
+        this.cooldownTracker.forEach((id, completed) -> {
+            QuestBase quest = QuestsManager.instance().getAllQuests().get(id);
+            if (quest != null && quest.repeatDelay > 0 && completed + quest.repeatDelay + 1 > time)
+                this.cooldownWheel.schedule(id, completed + quest.repeatDelay + 1);
+        });
+    }
+
+    private void onCooldownExpired(ResourceLocation id, long expiry) {
+        QuestBase quest = QuestsManager.instance().getAllQuests().get(id);
+        if (quest == null || quest.repeatDelay <= 0 || !this.cooldownTracker.containsKey(id))
+            return;
+        long actual = this.cooldownTracker.get(id, 0) + quest.repeatDelay + 1;
+        if (actual != expiry) {
+            // Delay changed through a reload
+            if (actual > this.player.level().getGameTime())
+                this.cooldownWheel.schedule(id, actual);
+            return;
+        }
+        this.acceptCache.remove(id);
+        if (this.player.containerMenu instanceof QuestGui gui)
+            gui.onCooldownExpired(quest);
+        if (ConfigHandler.CONFIG.notifyQuestAvailable && !quest.category.isSilent && this.canAcceptQuest(quest) == AcceptType.ACCEPT)
+            this.player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(this.player, "simplequests.available"), quest.getTask(this.player)).withStyle(ChatFormatting.DARK_GREEN));
+    }
+
+    /**
+     * @return The game time at which the text of {@link #formattedCooldown(QuestBase)} changes next
+     */
+    public long nextCooldownTextChange(QuestBase quest) {
+        long time = this.player.level().getGameTime();
+        long remaining = Math.max(0, quest.repeatDelay - Math.abs(time - this.cooldownTracker.get(quest.id, 0)));
+        // Only days and hours are shown for more than a day
+        long unit = remaining / 20 > 86400 ? 72000 : 20;
+        return time + remaining % unit + 1;
+    }
+
     public String formattedCooldown(QuestBase quest) {
-        long sec = Math.max(0, quest.repeatDelay - Math.abs(this.player.level().getGameTime() - this.cooldownTracker.get(quest.id))) / 20;
+        long sec = Math.max(0, quest.repeatDelay - Math.abs(this.player.level().getGameTime() - this.cooldownTracker.get(quest.id, 0))) / 20;
         if (sec > 86400) {
             long days = sec / 86400;
             long hours = (sec % 86400) / 3600;
@@ -393,61 +800,139 @@ public class PlayerData {
     }
 
     public CompoundTag save(MinecraftServer server) {
+        // Players are also saved when they disconnect, so nothing buffered gets lost
+        this.flushBufferedEvents();
         CompoundTag tag = new CompoundTag();
         ListTag quests = new ListTag();
         this.currentQuests.forEach(prog -> quests.add(prog.save(server.registryAccess())));
         tag.put("ActiveQuests", quests);
-        CompoundTag list = new CompoundTag();
-        this.cooldownTracker.forEach((res, time) -> list.putLong(res.toString(), time));
-        tag.put("FinishedQuests", list);
+        this.saveTrackers(tag);
         if (this.questTrackerTime != null)
             tag.putString("TimeTracker", this.questTrackerTime.format(TIME));
-        CompoundTag daily = new CompoundTag();
-        this.dailyQuestsTracker.forEach((res, amount) -> daily.putInt(res.toString(), amount));
-        tag.put("DailyQuestTracker", daily);
-        CompoundTag dailyCategory = new CompoundTag();
-        this.dailyQuestsCategoryTracker.forEach((res, amount) -> dailyCategory.putInt(res.toString(), amount));
-        tag.put("DailyQuestCategoryTracker", dailyCategory);
-        CompoundTag total = new CompoundTag();
-        this.finishedQuestsTracker.forEach((res, amount) -> total.putInt(res.toString(), amount));
-        tag.put("FinishedQuestTracker", total);
-        ListTag unlocked = new ListTag();
-        this.unlockTracker.forEach(res -> unlocked.add(StringTag.valueOf(res.toString())));
-        tag.put("UnlockedQuests", unlocked);
+        tag.putLong("ResetEpoch", this.resetEpoch);
         return tag;
     }
 
+    /**
+     * Writes the tracker maps in the current save format. Tags of trackers that didn't change since the last save are reused
+     */
+    void saveTrackers(CompoundTag tag) {
+        tag.putInt("SaveVersion", SAVE_VERSION);
+        if (this.dirty != 0) {
+            // Rebuild the palette so ids of removed entries and invalid ids from loading are dropped
+            this.palette.clear();
+            this.dirty = ALL;
+        }
+        if ((this.dirty & COOLDOWNS) != 0)
+            this.savedCooldowns = this.palette.saveLongs(this.cooldownTracker);
+        tag.put("Cooldowns", this.savedCooldowns);
+        if ((this.dirty & DAILY) != 0)
+            this.savedDaily = this.palette.saveInts(this.dailyQuestsTracker);
+        tag.put("DailyQuests", this.savedDaily);
+        if ((this.dirty & DAILY_CATEGORY) != 0)
+            this.savedDailyCategory = this.palette.saveInts(this.dailyQuestsCategoryTracker);
+        tag.put("DailyCategories", this.savedDailyCategory);
+        if ((this.dirty & FINISHED) != 0)
+            this.savedFinished = this.palette.saveInts(this.finishedQuestsTracker);
+        tag.put("FinishedCounts", this.savedFinished);
+        if ((this.dirty & UNLOCKED) != 0)
+            this.savedUnlocked = this.palette.saveIds(this.unlockTracker);
+        tag.put("Unlocked", this.savedUnlocked);
+        // Last so ids added by the trackers above are included
+        tag.put("Palette", this.palette.save());
+        this.dirty = 0;
+    }
+
     public void load(CompoundTag tag) {
+        this.acceptCache.clear();
         if (tag.contains("ActiveQuests")) {
             ListTag quests = tag.getList("ActiveQuests", Tag.TAG_COMPOUND);
             quests.forEach(q -> {
                 try {
                     QuestProgress prog = new QuestProgress((CompoundTag) q, this);
                     if (prog.getQuest() != null)
-                        this.currentQuests.add(prog);
+                        this.addProgress(prog);
                 } catch (IllegalStateException ignored) {
                 }
             });
         }
-        CompoundTag done = tag.getCompound("FinishedQuests");
-        done.getAllKeys().forEach(key -> this.cooldownTracker.put(ResourceLocation.parse(key), done.getLong(key)));
+        this.loadTrackers(tag);
+        this.rescheduleCooldowns();
         if (tag.contains("TimeTracker"))
             this.questTrackerTime = LocalDateTime.parse(tag.getString("TimeTracker"), TIME);
+        if (tag.contains("ResetEpoch"))
+            this.resetEpoch = tag.getLong("ResetEpoch");
+        else if (this.questTrackerTime != null)
+            this.resetEpoch = QuestResetClock.epochOf(this.questTrackerTime);
+        this.unlockGraph = null;
+    }
+
+    /**
+     * Reads the tracker maps of the current or the legacy save format
+     */
+    void loadTrackers(CompoundTag tag) {
+        if (tag.getInt("SaveVersion") >= 2) {
+            this.palette.load(tag.getList("Palette", Tag.TAG_STRING));
+            this.palette.loadLongs(tag.getCompound("Cooldowns"), this.cooldownTracker);
+            this.palette.loadInts(tag.getCompound("DailyQuests"), this.dailyQuestsTracker);
+            this.palette.loadInts(tag.getCompound("DailyCategories"), this.dailyQuestsCategoryTracker);
+            this.palette.loadInts(tag.getCompound("FinishedCounts"), this.finishedQuestsTracker);
+            this.palette.loadIds(tag.getIntArray("Unlocked"), this.unlockTracker);
+        } else {
+            this.palette.clear();
+            this.loadLegacyTrackers(tag);
+        }
+        this.dirty = ALL;
+    }
+
+    /**
+     * Reads the trackers saved with the quest ids as keys. Gets converted to the current format on the next save
+     */
+    private void loadLegacyTrackers(CompoundTag tag) {
+        CompoundTag done = tag.getCompound("FinishedQuests");
+        forEachValidKey(done, (id, key) -> this.cooldownTracker.put(id, done.getLong(key)));
         CompoundTag daily = tag.getCompound("DailyQuestTracker");
-        daily.getAllKeys().forEach(key -> this.dailyQuestsTracker.put(ResourceLocation.parse(key), done.getInt(key)));
+        forEachValidKey(daily, (id, key) -> this.dailyQuestsTracker.put(id, daily.getInt(key)));
         CompoundTag dailyCategory = tag.getCompound("DailyQuestCategoryTracker");
-        dailyCategory.getAllKeys().forEach(key -> this.dailyQuestsCategoryTracker.put(ResourceLocation.parse(key), done.getInt(key)));
+        forEachValidKey(dailyCategory, (id, key) -> this.dailyQuestsCategoryTracker.put(id, dailyCategory.getInt(key)));
         CompoundTag total = tag.getCompound("FinishedQuestTracker");
-        total.getAllKeys().forEach(key -> this.finishedQuestsTracker.put(ResourceLocation.parse(key), done.getInt(key)));
+        forEachValidKey(total, (id, key) -> this.finishedQuestsTracker.put(id, total.getInt(key)));
         ListTag unlocked = tag.getList("UnlockedQuests", Tag.TAG_STRING);
-        unlocked.forEach(t -> this.unlockTracker.add(ResourceLocation.parse(t.getAsString())));
+        unlocked.forEach(t -> {
+            ResourceLocation id = ResourceLocation.tryParse(t.getAsString());
+            if (id != null)
+                this.unlockTracker.add(id);
+        });
+    }
+
+    private static void forEachValidKey(CompoundTag tag, BiConsumer<ResourceLocation, String> cons) {
+        tag.getAllKeys().forEach(key -> {
+            ResourceLocation id = ResourceLocation.tryParse(key);
+            if (id != null)
+                cons.accept(id, key);
+        });
     }
 
     public void clone(PlayerData data) {
+        // The progress gets moved to this data so the buffered events of the old player need to be processed first
+        data.flushBufferedEvents();
+        this.acceptCache.clear();
+        this.dirty = ALL;
         this.currentQuests = data.currentQuests;
+        this.entryIndex.rebuild(this.currentQuests);
+        // Progress objects are shared with the old data, so their tickables need to be scheduled here too
+        this.currentQuests.forEach(prog -> {
+            if (prog.hasTickables())
+                this.addTickableProgress(prog);
+        });
         this.cooldownTracker = data.cooldownTracker;
+        this.palette = data.palette;
+        this.rescheduleCooldowns();
         this.unlockTracker = data.unlockTracker;
+        this.unlockGraph = null;
         this.questTrackerTime = data.questTrackerTime;
+        this.resetEpoch = data.resetEpoch;
+        this.dailySeed = data.dailySeed;
         this.dailyQuestsTracker.clear();
         this.dailyQuestsTracker.putAll(data.dailyQuestsTracker);
         this.dailyQuestsCategoryTracker.clear();
@@ -457,18 +942,33 @@ public class PlayerData {
     }
 
     public void resetAll() {
+        this.acceptCache.clear();
+        this.dirty = ALL;
         this.currentQuests.forEach(p -> p.getQuest().onReset(this.player));
         this.currentQuests.clear();
+        this.entryIndex.clear();
+        this.tickables.clear();
+        this.spatialIndex.clear();
         this.cooldownTracker.clear();
+        this.cooldownWheel.clear();
+        this.palette.clear();
         this.unlockTracker.clear();
+        this.unlockGraph = null;
         this.questTrackerTime = null;
+        this.resetEpoch = Long.MIN_VALUE;
         this.dailyQuestsTracker.clear();
         this.dailyQuestsCategoryTracker.clear();
         this.finishedQuestsTracker.clear();
     }
 
     public void resetCooldown() {
-        this.cooldownTracker.replaceAll((res, old) -> Long.MIN_VALUE);
+        this.cooldownTracker.fill(Long.MIN_VALUE);
+        this.dirty |= COOLDOWNS;
+        this.cooldownWheel.clear();
+        this.acceptCache.clear();
+    }
+
+    private record CachedAcceptType(QuestBase quest, AcceptType type, long validUntil) {
     }
 
     public enum AcceptType {
@@ -0,0 +1,35 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.SimpleQuests;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Binds the quest progress of online players to the quests of a reload on the next server tick so the old quests
+ * are no longer referenced and their cooldowns use the new repeat delays. Offline players get the new quests when their data is loaded.
+ */
+public class ProgressRebinder {
+
+    private static volatile boolean pending;
+
+    public static void schedule() {
+        pending = true;
+    }
+
+    public static void tick(MinecraftServer server) {
+        if (!pending)
+            return;
+        pending = false;
+        Map<QuestProgress.RebindResult, Integer> counts = new EnumMap<>(QuestProgress.RebindResult.class);
+        for (ServerPlayer player : server.getPlayerList().getPlayers())
+            PlayerData.get(player).rebindQuests(counts);
+        if (!counts.isEmpty())
+            SimpleQuests.LOGGER.info("Updated active quests after reload: {} rebound, {} kept, {} dropped",
+                    counts.getOrDefault(QuestProgress.RebindResult.REBOUND, 0),
+                    counts.getOrDefault(QuestProgress.RebindResult.KEPT, 0),
+                    counts.getOrDefault(QuestProgress.RebindResult.DROPPED, 0));
+    }
+}
@@ -5,10 +5,15 @@ import io.github.flemmli97.simplequests.api.QuestEntry;
 import io.github.flemmli97.simplequests.config.ConfigHandler;
 import io.github.flemmli97.simplequests.datapack.ProgressionTrackerKey;
 import io.github.flemmli97.simplequests.quest.entry.QuestEntryImpls;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.IntTag;
 import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
 import net.minecraft.nbt.NbtOps;
 import net.minecraft.nbt.NbtUtils;
 import net.minecraft.nbt.NumericTag;
@@ -17,8 +22,6 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.server.level.ServerPlayer;
 
-import java.util.HashSet;
-import java.util.Set;
 import java.util.UUID;
 
 public abstract class ProgressionTrackerImpl<T, E extends QuestEntry> implements ProgressionTracker<T, E> {
@@ -173,29 +176,50 @@ public abstract class ProgressionTrackerImpl<T, E extends QuestEntry> implements
         public static final String BLOCK_INTERACT_PROGRESS = QuestEntryImpls.BlockInteractEntry.ID + ".progress";
         public static final ProgressionTrackerKey<BlockPos, QuestEntryImpls.BlockInteractEntry> KEY = new ProgressionTrackerKey<>(SimpleQuests.MODID, "block_tracker");
 
-        private final Set<BlockPos> pos = new HashSet<>();
+        /**
+         * Positions packed via {@link BlockPos#asLong()}. Null if dupes are allowed or {@link #filter} is used
+         */
+        private final LongSet pos;
+        /**
+         * Used instead of the exact positions for tasks above {@link io.github.flemmli97.simplequests.config.Config#blockTrackerBloomThreshold}
+         */
+        private final BloomFilter filter;
         private int amount;
         private final boolean allowDupes;
 
         public BlockTracker(QuestEntryImpls.BlockInteractEntry questEntry) {
             super(questEntry);
             this.allowDupes = questEntry.allowDupes();
+            int threshold = ConfigHandler.CONFIG.blockTrackerBloomThreshold;
+            boolean bloom = !this.allowDupes && threshold >= 0 && questEntry.amount() > threshold;
+            this.pos = this.allowDupes || bloom ? null : new LongOpenHashSet();
+            this.filter = bloom ? new BloomFilter(questEntry.amount()) : null;
         }
 
         @Override
         public boolean isApplicable(BlockPos value) {
-            return this.allowDupes || !this.pos.contains(value);
+            return this.allowDupes || !this.contains(value.asLong());
         }
 
         @Override
         public boolean apply(BlockPos value) {
-            if (this.allowDupes || !this.pos.contains(value)) {
-                this.pos.add(value);
+            if (this.allowDupes || this.add(value.asLong()))
                 this.amount++;
-            }
             return this.amount >= this.questEntry().amount();
         }
 
+        private boolean contains(long pos) {
+            if (this.filter != null)
+                return this.filter.mightContain(pos);
+            return this.pos != null && this.pos.contains(pos);
+        }
+
+        private boolean add(long pos) {
+            if (this.filter != null)
+                return this.filter.add(pos);
+            return this.pos == null || this.pos.add(pos);
+        }
+
         @Override
         public MutableComponent formattedProgress(ServerPlayer player, QuestProgress progress) {
             float perc = this.amount / (float) this.questEntry().amount();
@@ -205,23 +229,95 @@ public abstract class ProgressionTrackerImpl<T, E extends QuestEntry> implements
             } else if (perc <= 0.7) {
                 form = ChatFormatting.GOLD;
             }
-            return Component.translatable(ConfigHandler.LANG.get(player, BLOCK_INTERACT_PROGRESS), this.pos.size(), this.questEntry().amount()).withStyle(form);
+            return Component.translatable(ConfigHandler.LANG.get(player, BLOCK_INTERACT_PROGRESS), this.amount, this.questEntry().amount()).withStyle(form);
         }
 
         @Override
         public Tag save() {
-            ListTag list = new ListTag();
-            this.pos.forEach(pos -> list.add(BlockPos.CODEC.encodeStart(NbtOps.INSTANCE, pos)
-                    .getOrThrow()));
-            return list;
+            if (this.filter != null) {
+                CompoundTag tag = new CompoundTag();
+                tag.putLongArray("Filter", this.filter.bits);
+                tag.putInt("Amount", this.amount);
+                return tag;
+            }
+            if (this.pos == null)
+                return IntTag.valueOf(this.amount);
+            return new LongArrayTag(this.pos.toLongArray());
         }
 
         @Override
         public void load(Tag tag) {
-            try {
-                ListTag list = (ListTag) tag;
-                list.forEach(t -> this.pos.add(BlockPos.CODEC.parse(NbtOps.INSTANCE, t).getOrThrow()));
-            } catch (ClassCastException ignored) {
+            switch (tag) {
+                case LongArrayTag positions -> {
+                    for (long l : positions.getAsLongArray())
+                        this.add(l);
+                    this.amount = positions.size();
+                }
+                case CompoundTag compound -> {
+                    long[] bits = compound.getLongArray("Filter");
+                    if (this.filter != null && bits.length == this.filter.bits.length)
+                        System.arraycopy(bits, 0, this.filter.bits, 0, bits.length);
+                    this.amount = compound.getInt("Amount");
+                }
+                case NumericTag amount -> this.amount = amount.getAsInt();
+                // Old format of BlockPos codec entries
+                case ListTag list -> {
+                    list.forEach(t -> BlockPos.CODEC.parse(NbtOps.INSTANCE, t).result()
+                            .ifPresent(p -> this.add(p.asLong())));
+                    this.amount = list.size();
+                }
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * Bloom filter sized for the amount of the task with a false positive rate of about 1% once the task amount is reached.
+         * A false positive makes a block count as already interacted with so the player needs to interact with a few more blocks.
+         * Uses about 1.2 bytes per block instead of the ~20 bytes of the exact set.
+         */
+        private static class BloomFilter {
+
+            private static final int HASHES = 7;
+
+            private final long[] bits;
+            private final long size;
+
+            private BloomFilter(int expected) {
+                // m = -n * ln(p) / ln(2)^2 for p = 0.01
+                long size = Math.max(64, (long) Math.ceil(expected * 9.586));
+                this.bits = new long[(int) ((size + 63) >>> 6)];
+                this.size = this.bits.length * 64L;
+            }
+
+            private boolean mightContain(long value) {
+                long h1 = HashCommon.mix(value);
+                long h2 = HashCommon.murmurHash3(value ^ 0x9E3779B97F4A7C15L) | 1;
+                for (int i = 0; i < HASHES; i++) {
+                    long bit = Math.floorMod(h1 + i * h2, this.size);
+                    if ((this.bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+                        return false;
+                }
+                return true;
+            }
+
+            /**
+             * @return True if the value was not yet in the filter
+             */
+            private boolean add(long value) {
+                long h1 = HashCommon.mix(value);
+                long h2 = HashCommon.murmurHash3(value ^ 0x9E3779B97F4A7C15L) | 1;
+                boolean added = false;
+                for (int i = 0; i < HASHES; i++) {
+                    long bit = Math.floorMod(h1 + i * h2, this.size);
+                    int index = (int) (bit >>> 6);
+                    long mask = 1L << bit;
+                    if ((this.bits[index] & mask) == 0) {
+                        this.bits[index] |= mask;
+                        added = true;
+                    }
+                }
+                return added;
             }
         }
     }
@@ -231,48 +327,270 @@ public abstract class ProgressionTrackerImpl<T, E extends QuestEntry> implements
         public static final String ENTITY_INTERACT_PROGRESS = QuestEntryImpls.EntityInteractEntry.ID + ".progress";
         public static final ProgressionTrackerKey<UUID, QuestEntryImpls.EntityInteractEntry> KEY = new ProgressionTrackerKey<>(SimpleQuests.MODID, "entity_tracker");
 
-        private final Set<UUID> entities = new HashSet<>();
+        private final UUIDSet entities = new UUIDSet();
+        /**
+         * Remembered entities in interaction order as most and least significant bits. Null if the entry has no dedup window
+         */
+        private long[] window;
+        /**
+         * Interaction time of the entities in {@link #window}. Null if the entry has no tick window
+         */
+        private long[] times;
+        private int head, size;
+        private long time;
+        private int amount;
 
         public EntityTracker(QuestEntryImpls.EntityInteractEntry questEntry) {
             super(questEntry);
+            if (questEntry.dedupWindow() > 0 || questEntry.dedupTicks() > 0) {
+                int capacity = questEntry.dedupWindow() > 0 ? Math.min(questEntry.dedupWindow(), 16) : 16;
+                this.window = new long[capacity * 2];
+                if (questEntry.dedupTicks() > 0)
+                    this.times = new long[capacity];
+            }
+        }
+
+        /**
+         * Forgets entities that were interacted with longer than {@link QuestEntryImpls.EntityInteractEntry#dedupTicks()} ago
+         */
+        public void advanceTime(long time) {
+            this.time = time;
+            if (this.times == null)
+                return;
+            while (this.size > 0 && time - this.times[this.head] >= this.questEntry().dedupTicks())
+                this.removeOldest();
         }
 
         @Override
         public boolean isApplicable(UUID value) {
-            return !this.entities.contains(value);
+            return !this.entities.contains(value.getMostSignificantBits(), value.getLeastSignificantBits());
         }
 
         @Override
         public boolean apply(UUID value) {
-            this.entities.add(value);
-            return this.entities.size() >= this.questEntry().amount();
+            if (this.add(value.getMostSignificantBits(), value.getLeastSignificantBits(), this.time))
+                this.amount++;
+            return this.amount >= this.questEntry().amount();
+        }
+
+        private boolean add(long most, long least, long time) {
+            if (!this.entities.add(most, least))
+                return false;
+            if (this.window == null)
+                return true;
+            int capacity = this.window.length / 2;
+            if (this.size == capacity) {
+                int max = this.questEntry().dedupWindow();
+                if (max > 0 && this.size >= max)
+                    this.removeOldest();
+                else
+                    this.grow(max > 0 ? Math.min(capacity * 2, max) : capacity * 2);
+                capacity = this.window.length / 2;
+            }
+            int index = (this.head + this.size) % capacity;
+            this.window[index * 2] = most;
+            this.window[index * 2 + 1] = least;
+            if (this.times != null)
+                this.times[index] = time;
+            this.size++;
+            return true;
+        }
+
+        private void removeOldest() {
+            this.entities.remove(this.window[this.head * 2], this.window[this.head * 2 + 1]);
+            this.head = (this.head + 1) % (this.window.length / 2);
+            this.size--;
+        }
+
+        private void grow(int capacity) {
+            int old = this.window.length / 2;
+            long[] window = new long[capacity * 2];
+            long[] times = this.times != null ? new long[capacity] : null;
+            for (int i = 0; i < this.size; i++) {
+                int index = (this.head + i) % old;
+                window[i * 2] = this.window[index * 2];
+                window[i * 2 + 1] = this.window[index * 2 + 1];
+                if (times != null)
+                    times[i] = this.times[index];
+            }
+            this.window = window;
+            this.times = times;
+            this.head = 0;
         }
 
         @Override
         public MutableComponent formattedProgress(ServerPlayer player, QuestProgress progress) {
-            float perc = this.entities.size() / (float) this.questEntry().amount();
+            float perc = this.amount / (float) this.questEntry().amount();
             ChatFormatting form = ChatFormatting.DARK_GREEN;
             if (perc <= 0.35) {
                 form = ChatFormatting.DARK_RED;
             } else if (perc <= 0.7) {
                 form = ChatFormatting.GOLD;
             }
-            return Component.translatable(ConfigHandler.LANG.get(player, ENTITY_INTERACT_PROGRESS), this.entities.size(), this.questEntry().amount()).withStyle(form);
+            return Component.translatable(ConfigHandler.LANG.get(player, ENTITY_INTERACT_PROGRESS), this.amount, this.questEntry().amount()).withStyle(form);
         }
 
         @Override
         public Tag save() {
-            ListTag list = new ListTag();
-            this.entities.forEach(uuid -> list.add(NbtUtils.createUUID(uuid)));
-            return list;
+            if (this.window == null)
+                return new LongArrayTag(this.entities.toLongArray());
+            // Oldest first so loading restores the window order
+            int capacity = this.window.length / 2;
+            long[] entities = new long[this.size * 2];
+            long[] times = new long[this.times != null ? this.size : 0];
+            for (int i = 0; i < this.size; i++) {
+                int index = (this.head + i) % capacity;
+                entities[i * 2] = this.window[index * 2];
+                entities[i * 2 + 1] = this.window[index * 2 + 1];
+                if (this.times != null)
+                    times[i] = this.times[index];
+            }
+            CompoundTag tag = new CompoundTag();
+            tag.putLongArray("Entities", entities);
+            if (this.times != null)
+                tag.putLongArray("Times", times);
+            tag.putInt("Amount", this.amount);
+            return tag;
         }
 
         @Override
         public void load(Tag tag) {
-            try {
-                ListTag list = (ListTag) tag;
-                list.forEach(t -> this.entities.add(NbtUtils.loadUUID(t)));
-            } catch (ClassCastException ignored) {
+            switch (tag) {
+                case LongArrayTag entities -> {
+                    long[] values = entities.getAsLongArray();
+                    for (int i = 0; i + 1 < values.length; i += 2)
+                        this.add(values[i], values[i + 1], 0);
+                    this.amount = values.length / 2;
+                }
+                case CompoundTag compound -> {
+                    long[] values = compound.getLongArray("Entities");
+                    long[] times = compound.getLongArray("Times");
+                    for (int i = 0; i + 1 < values.length; i += 2)
+                        this.add(values[i], values[i + 1], i / 2 < times.length ? times[i / 2] : 0);
+                    this.amount = compound.getInt("Amount");
+                }
+                // Old format of int array uuids
+                case ListTag list -> {
+                    list.forEach(t -> {
+                        UUID uuid = NbtUtils.loadUUID(t);
+                        this.add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 0);
+                    });
+                    this.amount = list.size();
+                }
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * Open addressing hash set of uuids stored as pairs of longs in a single array.
+         * Uses 16 bytes per entity at most instead of the ~80 bytes of a uuid in a hash set.
+         */
+        private static class UUIDSet {
+
+            private long[] table = new long[32];
+            private int mask = 15;
+            private int size;
+            /**
+             * The all zero uuid marks free slots so it is tracked separately
+             */
+            private boolean containsNil;
+
+            private int slot(long most, long least) {
+                return (int) HashCommon.mix(most ^ HashCommon.mix(least)) & this.mask;
+            }
+
+            private boolean isFree(int slot) {
+                return this.table[slot * 2] == 0 && this.table[slot * 2 + 1] == 0;
+            }
+
+            private int find(long most, long least) {
+                int slot = this.slot(most, least);
+                while (!this.isFree(slot)) {
+                    if (this.table[slot * 2] == most && this.table[slot * 2 + 1] == least)
+                        return slot;
+                    slot = (slot + 1) & this.mask;
+                }
+                return -1 - slot;
+            }
+
+            private boolean contains(long most, long least) {
+                if (most == 0 && least == 0)
+                    return this.containsNil;
+                return this.find(most, least) >= 0;
+            }
+
+            private boolean add(long most, long least) {
+                if (most == 0 && least == 0) {
+                    boolean added = !this.containsNil;
+                    this.containsNil = true;
+                    return added;
+                }
+                int slot = this.find(most, least);
+                if (slot >= 0)
+                    return false;
+                slot = -1 - slot;
+                this.table[slot * 2] = most;
+                this.table[slot * 2 + 1] = least;
+                // Keep the load factor at most 0.75
+                if (++this.size * 4 > (this.mask + 1) * 3)
+                    this.rehash();
+                return true;
+            }
+
+            private void remove(long most, long least) {
+                if (most == 0 && least == 0) {
+                    this.containsNil = false;
+                    return;
+                }
+                int pos = this.find(most, least);
+                if (pos < 0)
+                    return;
+                this.size--;
+                // Shift following entries back so no probe sequence gets interrupted
+                while (true) {
+                    int last = pos;
+                    pos = (pos + 1) & this.mask;
+                    while (true) {
+                        if (this.isFree(pos)) {
+                            this.table[last * 2] = 0;
+                            this.table[last * 2 + 1] = 0;
+                            return;
+                        }
+                        int slot = this.slot(this.table[pos * 2], this.table[pos * 2 + 1]);
+                        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+                            break;
+                        pos = (pos + 1) & this.mask;
+                    }
+                    this.table[last * 2] = this.table[pos * 2];
+                    this.table[last * 2 + 1] = this.table[pos * 2 + 1];
+                }
+            }
+
+            private void rehash() {
+                long[] old = this.table;
+                this.table = new long[old.length * 2];
+                this.mask = this.mask * 2 + 1;
+                for (int i = 0; i < old.length; i += 2) {
+                    if (old[i] == 0 && old[i + 1] == 0)
+                        continue;
+                    int slot = -1 - this.find(old[i], old[i + 1]);
+                    this.table[slot * 2] = old[i];
+                    this.table[slot * 2 + 1] = old[i + 1];
+                }
+            }
+
+            private long[] toLongArray() {
+                long[] values = new long[(this.size + (this.containsNil ? 1 : 0)) * 2];
+                int i = 0;
+                for (int slot = 0; slot <= this.mask; slot++) {
+                    if (this.isFree(slot))
+                        continue;
+                    values[i++] = this.table[slot * 2];
+                    values[i++] = this.table[slot * 2 + 1];
+                }
+                // Remaining zeros are the nil uuid
+                return values;
             }
         }
     }
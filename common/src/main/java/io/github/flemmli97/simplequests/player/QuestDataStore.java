@@ -0,0 +1,262 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.SimpleQuests;
+import io.github.flemmli97.simplequests.config.ConfigHandler;
+import net.minecraft.Util;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Storage of the quest data in separate files per player under the world folder instead of the vanilla player data.
+ * Used if {@link io.github.flemmli97.simplequests.config.Config#separateQuestStorage} is enabled.
+ * The files are written by a background thread. Saves of a player that happen before the writer gets to them are merged,
+ * all files of a batch get synced to disk together and then moved over the old files.
+ * The saved tags are never modified after {@link PlayerData#save} so they can be written from another thread.
+ * The file of a player gets read on another thread when they log in, before the player data is loaded.
+ */
+public class QuestDataStore {
+
+    private static final String DIRECTORY = "simplequests";
+    private static final String TAG = "SimpleQuestData";
+    private static final String SAVE_TIME = "SaveTime";
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Data not yet written, keyed by the file so data of different worlds never mixes.
+     * Also read by loading so a player relogging before the write finished gets the latest data
+     */
+    private static final Map<Path, Pending> PENDING = new HashMap<>();
+    /**
+     * Files read ahead when a player logs in. Dropped when the player is saved again before the data is loaded
+     */
+    private static final Map<Path, CompletableFuture<CompoundTag>> PREFETCHED = new HashMap<>();
+    private static boolean scheduled;
+    private static ExecutorService writer;
+
+    public static CompoundTag read(ServerPlayer player, CompoundTag playerTag) {
+        CompoundTag stored = load(player.getServer(), player.getUUID());
+        CompoundTag vanilla = playerTag.contains(TAG) ? playerTag.getCompound(TAG) : null;
+        if (stored == null)
+            return vanilla != null ? vanilla : new CompoundTag();
+        if (vanilla == null)
+            return stored;
+        // Switching the storage mode back and forth leaves data in both. Use the newer one
+        long storedTime = stored.getLong(SAVE_TIME);
+        long vanillaTime = vanilla.getLong(SAVE_TIME);
+        if (storedTime != vanillaTime)
+            return storedTime > vanillaTime ? stored : vanilla;
+        return ConfigHandler.CONFIG.separateQuestStorage ? stored : vanilla;
+    }
+
+    public static void write(ServerPlayer player, CompoundTag playerTag, CompoundTag questData) {
+        questData.putLong(SAVE_TIME, System.currentTimeMillis());
+        if (ConfigHandler.CONFIG.separateQuestStorage)
+            save(player.getServer(), player.getUUID(), questData);
+        else
+            playerTag.put(TAG, questData);
+    }
+
+    /**
+     * Starts reading the data of a player on another thread. Called when a player logs in so the file is read by the time the player data gets loaded
+     */
+    public static void prefetch(MinecraftServer server, UUID uuid) {
+        Path file = file(server, uuid);
+        synchronized (PENDING) {
+            if (PENDING.containsKey(file) || PREFETCHED.containsKey(file))
+                return;
+            PREFETCHED.put(file, CompletableFuture.supplyAsync(() -> readFile(file, uuid), Util.ioPool()));
+        }
+    }
+
+    private static Path file(MinecraftServer server, UUID uuid) {
+        return server.getWorldPath(LevelResource.ROOT).resolve(DIRECTORY).resolve(uuid + ".dat");
+    }
+
+    private static CompoundTag load(MinecraftServer server, UUID uuid) {
+        Path file = file(server, uuid);
+        CompletableFuture<CompoundTag> prefetched;
+        synchronized (PENDING) {
+            prefetched = PREFETCHED.remove(file);
+            Pending pending = PENDING.get(file);
+            if (pending != null)
+                return pending.tag();
+        }
+        if (prefetched != null)
+            return prefetched.join();
+        return readFile(file, uuid);
+    }
+
+    private static CompoundTag readFile(Path file, UUID uuid) {
+        if (!Files.exists(file))
+            return null;
+        try {
+            return NbtIo.readCompressed(file, NbtAccounter.unlimitedHeap());
+        } catch (IOException e) {
+            SimpleQuests.LOGGER.error("Couldn't read quest data of {}", uuid, e);
+            return null;
+        }
+    }
+
+    private static void save(MinecraftServer server, UUID uuid, CompoundTag tag) {
+        Path file = file(server, uuid);
+        synchronized (PENDING) {
+            // A file read before this save is outdated
+            CompletableFuture<CompoundTag> prefetched = PREFETCHED.remove(file);
+            if (prefetched != null)
+                prefetched.cancel(false);
+            PENDING.put(file, new Pending(uuid, tag, 0));
+            schedule();
+        }
+    }
+
+    private static void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            writer().execute(QuestDataStore::writePending);
+        }
+    }
+
+    /**
+     * Blocks until all pending data is written. Called when the server stops
+     */
+    public static void flush() {
+        ExecutorService executor;
+        synchronized (PENDING) {
+            if (writer == null)
+                return;
+            executor = writer;
+        }
+        try {
+            // Failed writes get scheduled again so wait till nothing is left
+            while (true) {
+                executor.submit(() -> {
+                }).get();
+                synchronized (PENDING) {
+                    if (!scheduled)
+                        break;
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            SimpleQuests.LOGGER.error("Failed waiting for quest data to be written", e);
+        }
+        // Nothing of this server is needed anymore
+        synchronized (PENDING) {
+            PREFETCHED.values().forEach(f -> f.cancel(false));
+            PREFETCHED.clear();
+            PENDING.clear();
+        }
+    }
+
+    private static ExecutorService writer() {
+        if (writer == null)
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "SimpleQuests Data Writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        return writer;
+    }
+
+    private static void writePending() {
+        Map<Path, Pending> batch;
+        synchronized (PENDING) {
+            scheduled = false;
+            batch = new HashMap<>(PENDING);
+        }
+        List<Written> written = new ArrayList<>(batch.size());
+        batch.forEach((file, pending) -> {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(tmp.getParent());
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                NbtIo.writeCompressed(pending.tag(), bytes);
+                FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                    while (buffer.hasRemaining())
+                        channel.write(buffer);
+                } catch (IOException e) {
+                    channel.close();
+                    throw e;
+                }
+                written.add(new Written(file, pending, tmp, channel));
+            } catch (IOException e) {
+                failed(file, pending, e);
+            }
+        });
+        // Sync the whole batch before replacing any of the old files
+        List<Written> synced = new ArrayList<>(written.size());
+        for (Written w : written) {
+            try (FileChannel channel = w.channel()) {
+                channel.force(true);
+                synced.add(w);
+            } catch (IOException e) {
+                failed(w.file(), w.pending(), e);
+            }
+        }
+        for (Written w : synced) {
+            try {
+                try {
+                    Files.move(w.tmp(), w.file(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(w.tmp(), w.file(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                // Only remove it if no newer save came in since
+                synchronized (PENDING) {
+                    if (PENDING.get(w.file()) == w.pending())
+                        PENDING.remove(w.file());
+                }
+            } catch (IOException e) {
+                failed(w.file(), w.pending(), e);
+            }
+        }
+    }
+
+    /**
+     * Tries the write again in the next batch. Gives up after a few attempts so the pending data doesn't stay forever
+     */
+    private static void failed(Path file, Pending pending, IOException e) {
+        synchronized (PENDING) {
+            // A newer save replaced it already
+            if (PENDING.get(file) != pending)
+                return;
+            if (pending.attempts() + 1 < MAX_ATTEMPTS) {
+                SimpleQuests.LOGGER.error("Couldn't write quest data of {}. Trying again", pending.uuid(), e);
+                PENDING.put(file, new Pending(pending.uuid(), pending.tag(), pending.attempts() + 1));
+                schedule();
+            } else {
+                SimpleQuests.LOGGER.error("Couldn't write quest data of {}", pending.uuid(), e);
+                PENDING.remove(file);
+            }
+        }
+    }
+
+    private record Pending(UUID uuid, CompoundTag tag, int attempts) {
+    }
+
+    private record Written(Path file, Pending pending, Path tmp, FileChannel channel) {
+    }
+}
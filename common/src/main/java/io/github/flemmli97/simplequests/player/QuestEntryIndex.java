@@ -0,0 +1,194 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.api.QuestEntry;
+import io.github.flemmli97.simplequests.api.SimpleQuestAPI;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Index of the unfinished quest entries of a player by their entry type.
+ * Triggers only look at entries that can actually match instead of scanning every active quest.
+ */
+public class QuestEntryIndex {
+
+    /**
+     * Each entry type gets its own bit. If there are more than 63 types the last bit is shared
+     */
+    private static final ClassValue<Long> TYPE_BITS = new ClassValue<>() {
+        private int next;
+
+        @Override
+        protected synchronized Long computeValue(Class<?> type) {
+            return this.next < 63 ? 1L << this.next++ : 1L << 63;
+        }
+    };
+
+    /**
+     * Kept as a list instead of a map so triggers can walk it without creating iterators
+     */
+    private final List<TypeBucket> index = new ArrayList<>();
+
+    private long activeTypes;
+
+    public void add(QuestProgress progress) {
+        progress.getQuestEntries().forEach((name, entry) -> {
+            if (!progress.isFinished(name)) {
+                this.bucket(entry.getClass()).entries.add(new IndexedEntry(progress, name, entry));
+                this.activeTypes |= TYPE_BITS.get(entry.getClass());
+            }
+        });
+    }
+
+    private TypeBucket bucket(Class<?> type) {
+        for (TypeBucket bucket : this.index) {
+            if (bucket.type == type)
+                return bucket;
+        }
+        TypeBucket bucket = new TypeBucket(type);
+        this.index.add(bucket);
+        return bucket;
+    }
+
+    public void remove(QuestProgress progress) {
+        if (this.index.removeIf(bucket -> {
+            bucket.entries.removeIf(e -> e.progress() == progress);
+            return bucket.entries.isEmpty();
+        }))
+            this.updateActiveTypes();
+    }
+
+    /**
+     * Reindex the given progress. Needed when the resolved entries of it change e.g. when advancing a {@link io.github.flemmli97.simplequests.quest.types.SequentialQuest}
+     */
+    public void update(QuestProgress progress) {
+        this.remove(progress);
+        this.add(progress);
+    }
+
+    public void rebuild(Collection<QuestProgress> progresses) {
+        this.clear();
+        progresses.forEach(this::add);
+    }
+
+    public void clear() {
+        this.index.clear();
+        this.activeTypes = 0;
+    }
+
+    /**
+     * Quick check if there are any unfinished entries that are of the given type.
+     * Does not allocate for the builtin entry types, so it can be used to early exit in frequently called events.
+     */
+    public boolean hasEntries(Class<?> clss) {
+        if ((this.activeTypes & TYPE_BITS.get(clss)) != 0)
+            return true;
+        // Final classes (which includes records) can only be matched by the exact type
+        if (this.activeTypes == 0 || Modifier.isFinal(clss.getModifiers()))
+            return false;
+        for (int i = 0; i < this.index.size(); i++) {
+            if (clss.isAssignableFrom(this.index.get(i).type))
+                return true;
+        }
+        return false;
+    }
+
+    private void updateActiveTypes() {
+        long types = 0;
+        for (TypeBucket bucket : this.index)
+            types |= TYPE_BITS.get(bucket.type);
+        this.activeTypes = types;
+    }
+
+    /**
+     * Run the predicate against all unfinished entries of the given type.
+     * Fulfilled entries are appended to the given matches. Nothing gets allocated if no entry matches.
+     *
+     * @return If any entry got fulfilled
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends QuestEntry> boolean tryFullFill(Class<T> clss, SimpleQuestAPI.QuestEntryPredicate<T> pred, Matches matches) {
+        int start = matches.size();
+        boolean removedType = false;
+        int bucketSize = this.index.size();
+        for (int b = 0; b < bucketSize; b++) {
+            TypeBucket bucket = this.index.get(b);
+            if (!clss.isAssignableFrom(bucket.type))
+                continue;
+            List<IndexedEntry> entries = bucket.entries;
+            int size = entries.size();
+            // Compact the list in place while iterating instead of removing through an iterator
+            int keep = 0;
+            for (int i = 0; i < size; i++) {
+                IndexedEntry e = entries.get(i);
+                // Entry got finished some other way e.g. through submitting or ticking
+                if (e.progress().isFinished(e.name()))
+                    continue;
+                if (e.progress().tryFullFill(e.name(), (T) e.entry(), pred)) {
+                    matches.add(e);
+                    continue;
+                }
+                if (keep != i)
+                    entries.set(keep, e);
+                keep++;
+            }
+            if (keep != size) {
+                entries.subList(keep, size).clear();
+                if (keep == 0)
+                    removedType = true;
+            }
+        }
+        if (removedType) {
+            this.index.removeIf(bucket -> bucket.entries.isEmpty());
+            this.updateActiveTypes();
+        }
+        return matches.size() > start;
+    }
+
+    private record IndexedEntry(QuestProgress progress, String name, QuestEntry entry) {
+    }
+
+    private static class TypeBucket {
+
+        private final Class<?> type;
+        private final List<IndexedEntry> entries = new ArrayList<>();
+
+        private TypeBucket(Class<?> type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Reusable buffer for the entries fulfilled by {@link #tryFullFill(Class, SimpleQuestAPI.QuestEntryPredicate, Matches)}
+     */
+    public static class Matches {
+
+        private final List<IndexedEntry> entries = new ArrayList<>();
+
+        private void add(IndexedEntry entry) {
+            this.entries.add(entry);
+        }
+
+        public int size() {
+            return this.entries.size();
+        }
+
+        public QuestProgress progress(int index) {
+            return this.entries.get(index).progress();
+        }
+
+        public String name(int index) {
+            return this.entries.get(index).name();
+        }
+
+        public QuestEntry entry(int index) {
+            return this.entries.get(index).entry();
+        }
+
+        public void clear() {
+            this.entries.clear();
+        }
+    }
+}
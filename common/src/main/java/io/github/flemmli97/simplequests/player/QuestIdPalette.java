@@ -0,0 +1,139 @@
+package io.github.flemmli97.simplequests.player;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntArrayTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Palette of the quest ids in the saved player data. Each id is saved once and referenced by its index.
+ * Ids are only added while saving so saved tags of unchanged data stay valid. The owner clears it and saves
+ * everything again when any data changed so ids that are no longer used get dropped.
+ */
+public class QuestIdPalette {
+
+    private static final String IDS = "Ids";
+    private static final String VALUES = "Values";
+
+    private final List<ResourceLocation> ids = new ArrayList<>();
+    private final Object2IntMap<ResourceLocation> indices = new Object2IntOpenHashMap<>();
+    private ListTag saved;
+
+    public QuestIdPalette() {
+        this.indices.defaultReturnValue(-1);
+    }
+
+    public int indexOf(ResourceLocation id) {
+        int index = this.indices.getInt(id);
+        if (index == -1) {
+            index = this.ids.size();
+            this.ids.add(id);
+            this.indices.put(id, index);
+            this.saved = null;
+        }
+        return index;
+    }
+
+    /**
+     * @return The id at the index or null if there is none or it was invalid
+     */
+    public ResourceLocation get(int index) {
+        return index >= 0 && index < this.ids.size() ? this.ids.get(index) : null;
+    }
+
+    public void clear() {
+        this.ids.clear();
+        this.indices.clear();
+        this.saved = null;
+    }
+
+    public ListTag save() {
+        if (this.saved == null) {
+            ListTag list = new ListTag();
+            this.ids.forEach(id -> list.add(StringTag.valueOf(id.toString())));
+            this.saved = list;
+        }
+        return this.saved;
+    }
+
+    public void load(ListTag tag) {
+        this.clear();
+        for (Tag t : tag) {
+            // Invalid ids keep their slot so the indices of the other ids stay the same
+            ResourceLocation id = ResourceLocation.tryParse(t.getAsString());
+            if (id != null)
+                this.indices.putIfAbsent(id, this.ids.size());
+            this.ids.add(id);
+        }
+    }
+
+    public CompoundTag saveLongs(IndexedLongMap map) {
+        int[] ids = new int[map.size()];
+        long[] values = new long[map.size()];
+        int[] i = {0};
+        map.forEach((id, value) -> {
+            ids[i[0]] = this.indexOf(id);
+            values[i[0]++] = value;
+        });
+        CompoundTag tag = new CompoundTag();
+        tag.putIntArray(IDS, ids);
+        tag.putLongArray(VALUES, values);
+        return tag;
+    }
+
+    public CompoundTag saveInts(IndexedIntMap map) {
+        int[] ids = new int[map.size()];
+        int[] values = new int[map.size()];
+        int[] i = {0};
+        map.forEach((id, value) -> {
+            ids[i[0]] = this.indexOf(id);
+            values[i[0]++] = value;
+        });
+        CompoundTag tag = new CompoundTag();
+        tag.putIntArray(IDS, ids);
+        tag.putIntArray(VALUES, values);
+        return tag;
+    }
+
+    public IntArrayTag saveIds(IndexedIdSet set) {
+        int[] ids = new int[set.size()];
+        int[] i = {0};
+        set.forEach(id -> ids[i[0]++] = this.indexOf(id));
+        return new IntArrayTag(ids);
+    }
+
+    public void loadLongs(CompoundTag tag, IndexedLongMap map) {
+        int[] ids = tag.getIntArray(IDS);
+        long[] values = tag.getLongArray(VALUES);
+        for (int i = 0; i < Math.min(ids.length, values.length); i++) {
+            ResourceLocation id = this.get(ids[i]);
+            if (id != null)
+                map.put(id, values[i]);
+        }
+    }
+
+    public void loadInts(CompoundTag tag, IndexedIntMap map) {
+        int[] ids = tag.getIntArray(IDS);
+        int[] values = tag.getIntArray(VALUES);
+        for (int i = 0; i < Math.min(ids.length, values.length); i++) {
+            ResourceLocation id = this.get(ids[i]);
+            if (id != null)
+                map.put(id, values[i]);
+        }
+    }
+
+    public void loadIds(int[] ids, IndexedIdSet set) {
+        for (int index : ids) {
+            ResourceLocation id = this.get(index);
+            if (id != null)
+                set.add(id);
+        }
+    }
+}
@@ -3,18 +3,22 @@ package io.github.flemmli97.simplequests.player;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.DynamicOps;
 import io.github.flemmli97.simplequests.SimpleQuests;
 import io.github.flemmli97.simplequests.api.QuestCompletionState;
 import io.github.flemmli97.simplequests.api.QuestEntry;
 import io.github.flemmli97.simplequests.api.SimpleQuestAPI;
+import io.github.flemmli97.simplequests.api.TickableArea;
 import io.github.flemmli97.simplequests.config.ConfigHandler;
 import io.github.flemmli97.simplequests.datapack.ProgressionTrackerKey;
 import io.github.flemmli97.simplequests.datapack.ProgressionTrackerRegistry;
 import io.github.flemmli97.simplequests.datapack.QuestBaseRegistry;
 import io.github.flemmli97.simplequests.datapack.QuestEntryRegistry;
 import io.github.flemmli97.simplequests.datapack.QuestsManager;
+import io.github.flemmli97.simplequests.quest.PredicatePrefilter;
 import io.github.flemmli97.simplequests.quest.entry.QuestEntryImpls;
 import io.github.flemmli97.simplequests.quest.types.CompositeQuest;
+import io.github.flemmli97.simplequests.quest.types.Quest;
 import io.github.flemmli97.simplequests.quest.types.QuestBase;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
@@ -29,14 +33,18 @@ import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
@@ -47,13 +55,19 @@ public class QuestProgress {
 
     private final Map<ProgressionTrackerKey<?, ?>, Map<String, ProgressionTracker<?, ?>>> progressionTrackers = new HashMap<>();
 
-    private final Map<String, Predicate<PlayerData>> tickables = new HashMap<>();
+    private final Map<String, ScheduledTickable> tickables = new HashMap<>();
 
     private QuestBase base;
     private int questIndex;
     private QuestBase quest;
     private Map<String, QuestEntry> questEntries;
 
+    /**
+     * Cached save data. The quest part only changes with the quest stage while the progress part changes with the
+     * finished entries and trackers. Both are shared between saves so they must not be modified
+     */
+    private CompoundTag savedQuest, savedProgress;
+
     public QuestProgress(QuestBase quest, PlayerData data, int subQuestIndex) {
         this.base = quest;
         this.questIndex = subQuestIndex;
@@ -81,9 +95,33 @@ public class QuestProgress {
         };
     }
 
+    /**
+     * Kill predicate for multiple kills at once. The killed entities are grouped by their type
+     */
+    public static SimpleQuestAPI.QuestEntryPredicate<QuestEntryImpls.KillEntry> createKillPredicate(ServerPlayer player, Map<EntityType<?>, List<LivingEntity>> entities) {
+        return (name, entry, prog) -> {
+            int amount = 0;
+            for (List<LivingEntity> list : entities.values()) {
+                if (!PredicatePrefilter.mayMatch(entry.predicate(), list.get(0)))
+                    continue;
+                for (LivingEntity entity : list) {
+                    if (entry.check(player, entity))
+                        amount++;
+                }
+            }
+            if (amount > 0) {
+                ProgressionTracker<Integer, QuestEntryImpls.KillEntry> track = prog.getOrCreateTracker(ProgressionTrackerImpl.KillTracker.KEY, entry, name);
+                return track.apply(amount);
+            }
+            return false;
+        };
+    }
+
     public static SimpleQuestAPI.QuestEntryPredicate<QuestEntryImpls.EntityInteractEntry> createInteractionPredicate(ServerPlayer player, Entity entity) {
         return (name, entry, prog) -> {
             ProgressionTracker<UUID, QuestEntryImpls.EntityInteractEntry> interacted = prog.getOrCreateTracker(ProgressionTrackerImpl.EntityTracker.KEY, entry, name);
+            if (interacted instanceof ProgressionTrackerImpl.EntityTracker tracker)
+                tracker.advanceTime(player.level().getGameTime());
             if (!interacted.isApplicable(entity.getUUID())) {
                 if (!prog.getQuest().category.isSilent)
                     player.sendSystemMessage(Component.translatable(ConfigHandler.LANG.get(player, "simplequests.interaction.dupe")).withStyle(ChatFormatting.DARK_RED));
@@ -121,11 +159,31 @@ public class QuestProgress {
         };
     }
 
+    /**
+     * Crafting predicate for multiple crafted stacks at once
+     *
+     * @param crafted The crafted stacks with the amount crafted
+     */
+    public static SimpleQuestAPI.QuestEntryPredicate<QuestEntryImpls.CraftingEntry> createCraftingPredicate(ServerPlayer player, List<Pair<ItemStack, Integer>> crafted) {
+        return (name, entry, prog) -> {
+            int amount = 0;
+            for (Pair<ItemStack, Integer> pair : crafted) {
+                if (entry.check(player, pair.getFirst()))
+                    amount += pair.getSecond();
+            }
+            if (amount > 0) {
+                ProgressionTracker<Integer, QuestEntryImpls.CraftingEntry> track = prog.getOrCreateTracker(ProgressionTrackerImpl.CraftingTracker.KEY, entry, name);
+                return track.apply(amount);
+            }
+            return false;
+        };
+    }
+
     public static SimpleQuestAPI.QuestEntryPredicate<QuestEntryImpls.FishingEntry> createFishingPredicate(ServerPlayer player, Collection<ItemStack> stacks) {
         return (name, entry, prog) -> {
-            ProgressionTracker<Integer, QuestEntryImpls.FishingEntry> track = prog.getOrCreateTracker(ProgressionTrackerImpl.FishingTracker.KEY, entry, name);
             for (ItemStack stack : stacks) {
                 if (entry.check(player, stack)) {
+                    ProgressionTracker<Integer, QuestEntryImpls.FishingEntry> track = prog.getOrCreateTracker(ProgressionTrackerImpl.FishingTracker.KEY, entry, name);
                     return track.apply(1);
                 }
             }
@@ -134,16 +192,128 @@ public class QuestProgress {
     }
 
     private void setup(PlayerData data) {
+        this.setup(data, this.questEntries.keySet());
+    }
+
+    private void setup(PlayerData data, Collection<String> names) {
         this.questEntries.forEach((s, e) -> {
+            if (!names.contains(s))
+                return;
             e.onAccept(data);
             if (!this.entries.contains(s)) {
                 Predicate<PlayerData> ticker = e.tickable();
                 if (ticker != null)
-                    this.tickables.put(s, ticker);
+                    this.tickables.put(s, new ScheduledTickable(s, ticker, Math.max(1, e.tickInterval()), e.tickableArea()));
             }
         });
     }
 
+    /**
+     * Binds this progress to the quests of a reload. Entries whose encoded definition didn't change keep their resolved task and progress,
+     * but use the entry instances of the reload. Changed and new entries get resolved again and start over
+     */
+    public RebindResult rebind(PlayerData data) {
+        // Not part of the loaded quests
+        if (this.base.isDynamic())
+            return RebindResult.KEPT;
+        ServerPlayer player = data.getPlayer();
+        QuestBase base = QuestsManager.instance().getAllQuests().get(this.base.id);
+        QuestBase quest = base != null ? base.resolveToQuest(player, this.questIndex) : null;
+        if (quest == null)
+            return RebindResult.DROPPED;
+        if (base == this.base && quest == this.quest)
+            return RebindResult.KEPT;
+        Set<String> changed = new HashSet<>();
+        Map<String, QuestEntry> kept = new HashMap<>();
+        Map<String, QuestEntry> resolved;
+        if (quest instanceof Quest actual) {
+            DynamicOps<Tag> ops = player.registryAccess().createSerializationContext(NbtOps.INSTANCE);
+            Map<String, QuestEntry> oldDefinitions = this.quest instanceof Quest old ? old.getEntries() : Map.of();
+            ImmutableMap.Builder<String, QuestEntry> builder = new ImmutableMap.Builder<>();
+            for (Map.Entry<String, QuestEntry> e : actual.getEntries().entrySet()) {
+                QuestEntry entry = this.rebindEntry(ops, this.questEntries.get(e.getKey()), oldDefinitions.get(e.getKey()), e.getValue());
+                if (entry != null) {
+                    kept.put(e.getKey(), entry);
+                } else {
+                    entry = e.getValue().resolve(player, actual);
+                    changed.add(e.getKey());
+                }
+                builder.put(e.getKey(), entry);
+            }
+            resolved = builder.build();
+        } else {
+            resolved = base.resolveTasks(player, this.questIndex);
+            changed.addAll(resolved.keySet());
+        }
+        for (String name : this.questEntries.keySet()) {
+            if (!resolved.containsKey(name))
+                changed.add(name);
+        }
+        changed.forEach(this::resetEntry);
+        kept.forEach(this::rebindKept);
+        this.base = base;
+        this.quest = quest;
+        this.questEntries = resolved;
+        this.savedQuest = null;
+        this.setup(data, changed);
+        if (!this.tickables.isEmpty())
+            data.addTickableProgress(this);
+        else
+            data.removeTickableQuestProgress(this);
+        data.updateEntryIndex(this);
+        return RebindResult.REBOUND;
+    }
+
+    /**
+     * @param current       The currently resolved entry
+     * @param oldDefinition The definition the current entry was resolved from
+     * @param definition    The definition of the reload
+     * @return An entry of the reload equal to the current entry or null if the definition changed
+     */
+    @Nullable
+    private QuestEntry rebindEntry(DynamicOps<Tag> ops, @Nullable QuestEntry current, @Nullable QuestEntry oldDefinition, QuestEntry definition) {
+        if (current == null || oldDefinition == null)
+            return null;
+        // Not every entry implements equals so compare what they are saved as
+        Optional<Tag> encoded = QuestEntryRegistry.CODEC.encodeStart(ops, oldDefinition).result();
+        if (encoded.isEmpty() || !encoded.equals(QuestEntryRegistry.CODEC.encodeStart(ops, definition).result()))
+            return null;
+        if (current == oldDefinition)
+            return definition;
+        // Resolved to another entry, e.g. a random one of a multi entry. Decode it again so it uses the registries of the reload
+        return QuestEntryRegistry.CODEC.encodeStart(ops, current)
+                .flatMap(tag -> QuestEntryRegistry.CODEC.parse(ops, tag))
+                .result().orElse(null);
+    }
+
+    /**
+     * Moves the trackers and the scheduled tick of an entry over to the entry of the reload
+     */
+    @SuppressWarnings("unchecked")
+    private void rebindKept(String name, QuestEntry entry) {
+        this.progressionTrackers.forEach((key, trackers) -> {
+            ProgressionTracker<?, ?> tracker = trackers.get(name);
+            if (tracker != null)
+                trackers.put(name, ProgressionTrackerRegistry.deserialize((ProgressionTrackerKey<?, QuestEntry>) key, entry, tracker.save()));
+        });
+        ScheduledTickable tickable = this.tickables.remove(name);
+        if (tickable != null) {
+            tickable.done = true;
+            Predicate<PlayerData> ticker = entry.tickable();
+            if (ticker != null)
+                this.tickables.put(name, new ScheduledTickable(name, ticker, Math.max(1, entry.tickInterval()), entry.tickableArea()));
+        }
+    }
+
+    private void resetEntry(String name) {
+        this.savedProgress = null;
+        this.entries.remove(name);
+        this.progressionTrackers.values().forEach(trackers -> trackers.remove(name));
+        ScheduledTickable tickable = this.tickables.remove(name);
+        if (tickable != null)
+            tickable.done = true;
+    }
+
     public QuestBase getQuest() {
         return this.base;
     }
@@ -177,6 +347,7 @@ public class QuestProgress {
                 continue;
             if (entry.getValue().submit(player)) {
                 this.entries.add(entry.getKey());
+                this.savedProgress = null;
                 any = true;
             }
         }
@@ -188,21 +359,31 @@ public class QuestProgress {
         };
     }
 
-    @SuppressWarnings("unchecked")
-    public <T extends QuestEntry> Set<Pair<String, T>> tryFullFill(Class<T> clss, SimpleQuestAPI.QuestEntryPredicate<T> pred) {
-        Set<Pair<String, T>> fullfilled = new HashSet<>();
-        for (Map.Entry<String, QuestEntry> e : this.questEntries.entrySet()) {
-            if (this.entries.contains(e.getKey()))
-                continue;
-            if (clss.isInstance(e.getValue())) {
-                T entry = (T) e.getValue();
-                if (pred.matches(e.getKey(), entry, this)) {
-                    fullfilled.add(Pair.of(e.getKey(), entry));
-                    this.entries.add(e.getKey());
-                }
-            }
+    /**
+     * Try fulfilling a single entry of this quest
+     *
+     * @return true if the entry got fulfilled
+     */
+    public <T extends QuestEntry> boolean tryFullFill(String name, T entry, SimpleQuestAPI.QuestEntryPredicate<T> pred) {
+        if (this.entries.contains(name))
+            return false;
+        if (pred.matches(name, entry, this)) {
+            this.entries.add(name);
+            this.savedProgress = null;
+            return true;
         }
-        return fullfilled;
+        return false;
+    }
+
+    public boolean isFinished(String entry) {
+        return this.entries.contains(entry);
+    }
+
+    public boolean allTasksDone() {
+        // Finished entries are always a subset of the quest entries so this avoids the iterator for the common case
+        if (this.entries.size() < this.questEntries.size())
+            return false;
+        return this.entries.containsAll(this.questEntries.keySet());
     }
 
     public QuestCompletionState tryComplete(ServerPlayer player, String trigger) {
@@ -213,11 +394,13 @@ public class QuestProgress {
                 this.quest = next;
                 this.questEntries = this.quest.resolveTasks(player, 0);
                 this.questIndex += 1;
+                this.savedQuest = null;
                 this.resetTrackers();
                 PlayerData data = PlayerData.get(player);
                 this.setup(data);
                 if (!this.tickables.isEmpty())
                     data.addTickableProgress(this);
+                data.updateEntryIndex(this);
                 return QuestCompletionState.PARTIAL;
             }
         }
@@ -245,30 +428,84 @@ public class QuestProgress {
 
     @SuppressWarnings("unchecked")
     public <T, E extends QuestEntry> ProgressionTracker<T, E> getOrCreateTracker(ProgressionTrackerKey<T, E> key, E entry, String entryName) {
+        // Trackers are obtained through here to be modified
+        this.markDirty();
         Map<String, ProgressionTracker<?, ?>> tracks = this.progressionTrackers.computeIfAbsent(key, k -> new HashMap<>());
         return (ProgressionTracker<T, E>) tracks.computeIfAbsent(entryName, (res) -> ProgressionTrackerRegistry.create(key, entry));
     }
 
-    public Pair<Boolean, Set<QuestEntry>> tickProgress(PlayerData data) {
-        Set<QuestEntry> fullfilled = new HashSet<>();
-        this.tickables.entrySet().removeIf(e -> {
-            if (e.getValue().test(data)) {
-                fullfilled.add(this.questEntries.get(e.getKey()));
-                this.entries.add(e.getKey());
+    /**
+     * Checks the tickable entries that are due at the given tick
+     *
+     * @param tick The tick of the player. Already offset to spread the checks of players out
+     * @return The entries that got fulfilled
+     */
+    public Set<QuestEntry> tickProgress(PlayerData data, long tick) {
+        Set<QuestEntry> fullfilled = Set.of();
+        Iterator<Map.Entry<String, ScheduledTickable>> it = this.tickables.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, ScheduledTickable> e = it.next();
+            ScheduledTickable tickable = e.getValue();
+            // Entries with an area are only checked while the player is near it. See SpatialEntryIndex
+            if (tick % tickable.interval != 0 || (tickable.area != null && !tickable.inRange) || !tickable.ticker.test(data))
+                continue;
+            if (fullfilled.isEmpty())
+                fullfilled = new HashSet<>();
+            fullfilled.add(this.questEntries.get(e.getKey()));
+            this.entries.add(e.getKey());
+            this.savedProgress = null;
+            tickable.done = true;
+            it.remove();
+        }
+        return fullfilled;
+    }
+
+    public boolean hasTickables() {
+        return !this.tickables.isEmpty();
+    }
+
+    /**
+     * @return If there are tickable entries without a {@link TickableArea}. These need to be checked regardless of the player position
+     */
+    public boolean hasUnboundedTickables() {
+        for (ScheduledTickable tickable : this.tickables.values()) {
+            if (tickable.area == null)
                 return true;
-            }
-            return false;
-        });
-        return Pair.of(this.tickables.isEmpty(), fullfilled);
+        }
+        return false;
+    }
+
+    Collection<ScheduledTickable> scheduledTickables() {
+        return this.tickables.values();
+    }
+
+    /**
+     * Marks the progress as changed so it gets saved again. Needed when modifying a tracker obtained via {@link #getTracker(ProgressionTrackerKey, String)}
+     */
+    public void markDirty() {
+        this.savedProgress = null;
     }
 
     public void resetTrackers() {
+        this.savedProgress = null;
         this.entries.clear();
         this.progressionTrackers.clear();
+        this.tickables.values().forEach(t -> t.done = true);
         this.tickables.clear();
     }
 
     public CompoundTag save(HolderLookup.Provider lookup) {
+        if (this.savedQuest == null)
+            this.savedQuest = this.saveQuest(lookup);
+        if (this.savedProgress == null)
+            this.savedProgress = this.saveProgress();
+        CompoundTag tag = new CompoundTag();
+        this.savedQuest.getAllKeys().forEach(key -> tag.put(key, this.savedQuest.get(key)));
+        this.savedProgress.getAllKeys().forEach(key -> tag.put(key, this.savedProgress.get(key)));
+        return tag;
+    }
+
+    private CompoundTag saveQuest(HolderLookup.Provider lookup) {
         CompoundTag tag = new CompoundTag();
         if (this.base.isDynamic()) {
             tag.putBoolean("DynamicQuest", true);
@@ -282,7 +519,11 @@ public class QuestProgress {
         this.questEntries.forEach((id, entry) -> entries.put(id, QuestEntryRegistry.CODEC.encodeStart(lookup.createSerializationContext(NbtOps.INSTANCE), entry)
                 .mapError(e -> "Couldn't save quest entry " + e).getOrThrow()));
         tag.put("QuestEntries", entries);
+        return tag;
+    }
 
+    private CompoundTag saveProgress() {
+        CompoundTag tag = new CompoundTag();
         ListTag list = new ListTag();
         this.entries.forEach(res -> list.add(StringTag.valueOf(res)));
         tag.put("FinishedEntries", list);
@@ -321,6 +562,12 @@ public class QuestProgress {
             entries.getAllKeys().forEach(key -> builder.put(key, QuestEntryRegistry.CODEC.parse(NbtOps.INSTANCE, entries.getCompound(key))
                     .mapError(e -> "Couldn't read quest entry" + e).getOrThrow()));
             this.questEntries = builder.build();
+            // Still the same as what would be encoded
+            this.savedQuest = new CompoundTag();
+            for (String key : List.of("DynamicQuest", "Quest", "QuestIndex", "QuestEntries")) {
+                if (tag.contains(key))
+                    this.savedQuest.put(key, tag.get(key));
+            }
         } else {
             this.questEntries = this.quest.resolveTasks(player, this.questIndex);
         }
@@ -349,10 +596,34 @@ public class QuestProgress {
         }
     }
 
+    public enum RebindResult {
+        KEPT,
+        REBOUND,
+        DROPPED
+    }
+
     public enum SubmitType {
         COMPLETE,
         PARTIAL,
         PARTIAL_COMPLETE,
         NOTHING
     }
+
+    static class ScheduledTickable {
+
+        final String name;
+        final Predicate<PlayerData> ticker;
+        final int interval;
+        @Nullable
+        final TickableArea area;
+        boolean inRange;
+        boolean done;
+
+        private ScheduledTickable(String name, Predicate<PlayerData> ticker, int interval, @Nullable TickableArea area) {
+            this.name = name;
+            this.ticker = ticker;
+            this.interval = interval;
+            this.area = area;
+        }
+    }
 }
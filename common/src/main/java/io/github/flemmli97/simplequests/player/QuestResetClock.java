@@ -0,0 +1,114 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.SimpleQuests;
+import io.github.flemmli97.simplequests.config.ConfigHandler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+
+/**
+ * Server wide clock for the daily quest reset. The current period is identified by an epoch counter.
+ * When a new period starts the online players get rolled over spread over multiple ticks.
+ * Players with an outdated epoch that were not online at that time roll over on their next tick.
+ */
+public class QuestResetClock {
+
+    private static long settledEpoch = Long.MIN_VALUE;
+    private static long latestEpoch = Long.MIN_VALUE;
+    private static final Deque<UUID> PENDING = new ArrayDeque<>();
+
+    private static String zoneConfig;
+    private static ZoneId zone = ZoneId.systemDefault();
+
+    public static void tick(MinecraftServer server) {
+        if (server.getTickCount() % 20 == 0) {
+            long epoch = epochOf(Instant.now());
+            if (epoch != latestEpoch()) {
+                latestEpoch = epoch;
+                PENDING.clear();
+                server.getPlayerList().getPlayers().forEach(p -> PENDING.add(p.getUUID()));
+            }
+        }
+        if (PENDING.isEmpty())
+            return;
+        int amount = Math.max(1, ConfigHandler.CONFIG.resetRolloversPerTick);
+        while (amount > 0 && !PENDING.isEmpty()) {
+            ServerPlayer player = server.getPlayerList().getPlayer(PENDING.poll());
+            if (player != null && PlayerData.get(player).rollover(latestEpoch))
+                amount--;
+        }
+        if (PENDING.isEmpty())
+            settledEpoch = latestEpoch;
+    }
+
+    /**
+     * Clears the state of the previous server so a new one in the same jvm starts fresh
+     */
+    public static void reset() {
+        settledEpoch = Long.MIN_VALUE;
+        latestEpoch = Long.MIN_VALUE;
+        PENDING.clear();
+        zoneConfig = null;
+        zone = ZoneId.systemDefault();
+    }
+
+    /**
+     * @return The epoch players should be on
+     */
+    public static long latestEpoch() {
+        if (latestEpoch == Long.MIN_VALUE) {
+            latestEpoch = epochOf(Instant.now());
+            settledEpoch = latestEpoch;
+        }
+        return latestEpoch;
+    }
+
+    /**
+     * @return If the epoch is the current one or if the player is still queued for the rollover to the current one
+     */
+    public static boolean isCurrent(long epoch) {
+        return epoch == latestEpoch() || epoch == settledEpoch;
+    }
+
+    public static long epochOf(LocalDateTime time) {
+        return epochOf(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public static long epochOf(Instant instant) {
+        ZonedDateTime time = instant.atZone(zone()).minusHours(ConfigHandler.CONFIG.resetHour);
+        long day = time.toLocalDate().toEpochDay();
+        if (ConfigHandler.CONFIG.resetPeriod != ResetPeriod.WEEKLY)
+            return day;
+        // Epoch day 0 is a thursday
+        int offset = ConfigHandler.CONFIG.resetDay.getValue() - DayOfWeek.THURSDAY.getValue();
+        return Math.floorDiv(day - offset, 7);
+    }
+
+    private static ZoneId zone() {
+        String config = ConfigHandler.CONFIG.resetZone;
+        if (!config.equals(zoneConfig)) {
+            zoneConfig = config;
+            try {
+                zone = config.isEmpty() ? ZoneId.systemDefault() : ZoneId.of(config);
+            } catch (DateTimeException e) {
+                SimpleQuests.LOGGER.error("Invalid reset zone {}. Using system default", config);
+                zone = ZoneId.systemDefault();
+            }
+        }
+        return zone;
+    }
+
+    public enum ResetPeriod {
+        DAILY,
+        WEEKLY
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.api.TickableArea;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the tickable entries of a player that declare a {@link TickableArea}, bucketed by chunk section per dimension.
+ * The buckets are only looked up when the player moves into another section and only the entries
+ * of that bucket get checked while the player stays there.
+ */
+public class SpatialEntryIndex {
+
+    /**
+     * Areas spanning more sections than this are not split into buckets and instead are always checked in their dimension
+     */
+    private static final int MAX_SECTIONS = 512;
+
+    private final Map<ResourceKey<Level>, Buckets> dimensions = new HashMap<>();
+    private final Buckets anyDimension = new Buckets();
+
+    private final List<QuestProgress.ScheduledTickable> inRange = new ArrayList<>();
+    private final List<QuestProgress> inRangeProgress = new ArrayList<>();
+    private ResourceKey<Level> lastDimension;
+    private long lastSection;
+    private boolean dirty = true;
+
+    public void add(QuestProgress progress) {
+        for (QuestProgress.ScheduledTickable tickable : progress.scheduledTickables()) {
+            if (tickable.area == null || tickable.done)
+                continue;
+            TickableArea area = tickable.area;
+            Buckets buckets = area.dimension() == null ? this.anyDimension : this.dimensions.computeIfAbsent(area.dimension(), d -> new Buckets());
+            buckets.add(new Located(progress, tickable));
+        }
+        this.dirty = true;
+    }
+
+    public void remove(QuestProgress progress) {
+        if (this.isEmpty())
+            return;
+        this.anyDimension.remove(progress);
+        this.dimensions.values().removeIf(b -> {
+            b.remove(progress);
+            return b.isEmpty();
+        });
+        this.dirty = true;
+    }
+
+    public void clear() {
+        this.anyDimension.clear();
+        this.dimensions.clear();
+        this.inRange.forEach(t -> t.inRange = false);
+        this.inRange.clear();
+        this.inRangeProgress.clear();
+        this.dirty = true;
+    }
+
+    public boolean isEmpty() {
+        return this.anyDimension.isEmpty() && this.dimensions.isEmpty();
+    }
+
+    /**
+     * Marks the entries near the player. Only does a lookup if the player changed section or the index got modified
+     */
+    public void update(ServerPlayer player) {
+        if (this.isEmpty()) {
+            if (!this.inRangeProgress.isEmpty())
+                this.clear();
+            return;
+        }
+        ResourceKey<Level> dimension = player.level().dimension();
+        BlockPos pos = player.blockPosition();
+        long section = SectionPos.asLong(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getY()), SectionPos.blockToSectionCoord(pos.getZ()));
+        if (!this.dirty && section == this.lastSection && dimension == this.lastDimension)
+            return;
+        this.dirty = false;
+        this.lastSection = section;
+        this.lastDimension = dimension;
+        this.inRange.forEach(t -> t.inRange = false);
+        this.inRange.clear();
+        this.inRangeProgress.clear();
+        this.anyDimension.collect(section, this.inRange, this.inRangeProgress);
+        Buckets buckets = this.dimensions.get(dimension);
+        if (buckets != null)
+            buckets.collect(section, this.inRange, this.inRangeProgress);
+        this.inRange.forEach(t -> t.inRange = true);
+    }
+
+    /**
+     * @return The progress with entries near the player as of the last {@link #update(ServerPlayer)}. Each progress is only contained once
+     */
+    public List<QuestProgress> inRange() {
+        return this.inRangeProgress;
+    }
+
+    private record Located(QuestProgress progress, QuestProgress.ScheduledTickable tickable) {
+    }
+
+    private static class Buckets {
+
+        private final Long2ObjectMap<List<Located>> sections = new Long2ObjectOpenHashMap<>();
+        private final Long2ObjectMap<List<Located>> columns = new Long2ObjectOpenHashMap<>();
+        private final List<Located> global = new ArrayList<>();
+
+        private void add(Located located) {
+            TickableArea area = located.tickable().area;
+            if (!area.boundedXZ()) {
+                this.global.add(located);
+                return;
+            }
+            int minX = SectionPos.blockToSectionCoord(area.minX());
+            int maxX = SectionPos.blockToSectionCoord(area.maxX());
+            int minZ = SectionPos.blockToSectionCoord(area.minZ());
+            int maxZ = SectionPos.blockToSectionCoord(area.maxZ());
+            long columns = (maxX - minX + 1L) * (maxZ - minZ + 1L);
+            if (columns > MAX_SECTIONS) {
+                this.global.add(located);
+                return;
+            }
+            if (area.boundedY()) {
+                int minY = SectionPos.blockToSectionCoord(area.minY());
+                int maxY = SectionPos.blockToSectionCoord(area.maxY());
+                if (columns * (maxY - minY + 1L) <= MAX_SECTIONS) {
+                    for (int x = minX; x <= maxX; x++)
+                        for (int y = minY; y <= maxY; y++)
+                            for (int z = minZ; z <= maxZ; z++)
+                                this.sections.computeIfAbsent(SectionPos.asLong(x, y, z), k -> new ArrayList<>()).add(located);
+                    return;
+                }
+            }
+            // Most location predicates don't restrict the height so use whole columns for them
+            for (int x = minX; x <= maxX; x++)
+                for (int z = minZ; z <= maxZ; z++)
+                    this.columns.computeIfAbsent(ChunkPos.asLong(x, z), k -> new ArrayList<>()).add(located);
+        }
+
+        private void remove(QuestProgress progress) {
+            this.sections.values().removeIf(l -> {
+                l.removeIf(e -> e.progress() == progress);
+                return l.isEmpty();
+            });
+            this.columns.values().removeIf(l -> {
+                l.removeIf(e -> e.progress() == progress);
+                return l.isEmpty();
+            });
+            this.global.removeIf(e -> e.progress() == progress);
+        }
+
+        private void collect(long section, List<QuestProgress.ScheduledTickable> result, List<QuestProgress> progress) {
+            collect(this.sections.get(section), result, progress);
+            collect(this.columns.get(ChunkPos.asLong(SectionPos.x(section), SectionPos.z(section))), result, progress);
+            collect(this.global, result, progress);
+        }
+
+        private static void collect(List<Located> located, List<QuestProgress.ScheduledTickable> result, List<QuestProgress> progress) {
+            if (located == null)
+                return;
+            for (Located e : located) {
+                if (e.tickable().done || e.tickable().inRange)
+                    continue;
+                // Marked right away so entries spanning multiple buckets are only collected once
+                e.tickable().inRange = true;
+                result.add(e.tickable());
+                if (!progress.contains(e.progress()))
+                    progress.add(e.progress());
+            }
+        }
+
+        private boolean isEmpty() {
+            return this.sections.isEmpty() && this.columns.isEmpty() && this.global.isEmpty();
+        }
+
+        private void clear() {
+            this.sections.clear();
+            this.columns.clear();
+            this.global.clear();
+        }
+    }
+}
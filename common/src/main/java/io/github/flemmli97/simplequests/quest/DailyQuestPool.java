@@ -0,0 +1,151 @@
+package io.github.flemmli97.simplequests.quest;
+
+import io.github.flemmli97.simplequests.quest.types.Quest;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * The daily quests of a category. Built once on reload so selecting the daily quests of a player
+ * only costs O(k) for k selected quests instead of shuffling the whole pool.
+ * Quests with a {@link io.github.flemmli97.simplequests.quest.types.QuestBase#getDailyWeight()} are sampled
+ * via an alias table.
+ */
+public class DailyQuestPool {
+
+    public static final DailyQuestPool EMPTY = new DailyQuestPool(List.of());
+
+    private final List<Quest> quests;
+    private final boolean weighted;
+    private final double[] probability;
+    private final int[] alias;
+
+    public DailyQuestPool(Collection<Quest> quests) {
+        // Sorted so the selection for a given seed does not depend on the iteration order of the source
+        this.quests = quests.stream().sorted(Comparator.comparing((Quest q) -> q.id)).toList();
+        this.weighted = this.quests.stream().anyMatch(q -> q.getDailyWeight() != 1);
+        int size = this.quests.size();
+        this.probability = new double[this.weighted ? size : 0];
+        this.alias = new int[this.weighted ? size : 0];
+        if (this.weighted)
+            this.buildAliasTable();
+    }
+
+    /**
+     * Vose's alias method
+     */
+    private void buildAliasTable() {
+        int size = this.quests.size();
+        double total = this.quests.stream().mapToDouble(Quest::getDailyWeight).sum();
+        double[] scaled = new double[size];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            scaled[i] = this.quests.get(i).getDailyWeight() * size / total;
+            if (scaled[i] < 1)
+                small.add(i);
+            else
+                large.add(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int s = small.poll();
+            int l = large.poll();
+            this.probability[s] = scaled[s];
+            this.alias[s] = l;
+            scaled[l] = scaled[l] + scaled[s] - 1;
+            if (scaled[l] < 1)
+                small.add(l);
+            else
+                large.add(l);
+        }
+        while (!large.isEmpty())
+            this.probability[large.poll()] = 1;
+        while (!small.isEmpty())
+            this.probability[small.poll()] = 1;
+    }
+
+    public boolean isEmpty() {
+        return this.quests.isEmpty();
+    }
+
+    public int size() {
+        return this.quests.size();
+    }
+
+    public List<Quest> getQuests() {
+        return this.quests;
+    }
+
+    /**
+     * Select distinct quests from this pool
+     *
+     * @param amount The amount to select. If negative or bigger than the pool all quests are returned
+     */
+    public List<Quest> sample(Random random, int amount) {
+        int size = this.quests.size();
+        if (amount < 0 || amount >= size)
+            return this.quests;
+        if (amount == 0)
+            return List.of();
+        IntSet selected = this.weighted ? this.sampleWeighted(random, amount) : this.sampleUniform(random, amount);
+        List<Quest> result = new ArrayList<>(amount);
+        for (IntIterator it = selected.iterator(); it.hasNext(); )
+            result.add(this.quests.get(it.nextInt()));
+        return result;
+    }
+
+    /**
+     * Floyd's algorithm
+     */
+    private IntSet sampleUniform(Random random, int amount) {
+        int size = this.quests.size();
+        IntSet selected = new IntLinkedOpenHashSet(amount);
+        for (int j = size - amount; j < size; j++) {
+            int t = random.nextInt(j + 1);
+            if (!selected.add(t))
+                selected.add(j);
+        }
+        return selected;
+    }
+
+    private IntSet sampleWeighted(Random random, int amount) {
+        int size = this.quests.size();
+        IntSet selected = new IntLinkedOpenHashSet(amount);
+        // Rejecting duplicates is only cheap if the pool is a lot bigger than the amount selected
+        if (amount * 2 <= size) {
+            int tries = amount * 8;
+            while (selected.size() < amount && tries-- > 0) {
+                int i = random.nextInt(size);
+                selected.add(random.nextDouble() < this.probability[i] ? i : this.alias[i]);
+            }
+            if (selected.size() == amount)
+                return selected;
+            selected.clear();
+        }
+        // Efraimidis-Spirakis weighted sampling without replacement
+        PriorityQueue<WeightedKey> keys = new PriorityQueue<>(amount, Comparator.comparingDouble(WeightedKey::key));
+        for (int i = 0; i < size; i++) {
+            double key = Math.pow(random.nextDouble(), 1.0 / this.quests.get(i).getDailyWeight());
+            if (keys.size() < amount)
+                keys.add(new WeightedKey(i, key));
+            else if (key > keys.peek().key()) {
+                keys.poll();
+                keys.add(new WeightedKey(i, key));
+            }
+        }
+        keys.forEach(k -> selected.add(k.index()));
+        return selected;
+    }
+
+    private record WeightedKey(int index, double key) {
+    }
+}
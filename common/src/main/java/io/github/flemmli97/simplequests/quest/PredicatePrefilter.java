@@ -0,0 +1,45 @@
+package io.github.flemmli97.simplequests.quest;
+
+import net.minecraft.advancements.critereon.BlockPredicate;
+import net.minecraft.advancements.critereon.EntityPredicate;
+import net.minecraft.advancements.critereon.EntityTypePredicate;
+import net.minecraft.advancements.critereon.ItemPredicate;
+import net.minecraft.core.HolderSet;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
+/**
+ * Cheap checks against the type restrictions of vanilla predicates.
+ * Rules out most events before the full predicate (and the player predicate) gets evaluated.
+ * The type sets are read from the predicate on each check instead of being flattened on reload
+ * since tag based sets only get bound after the quests are loaded.
+ */
+public class PredicatePrefilter {
+
+    public static boolean mayMatch(@Nullable EntityPredicate predicate, Entity entity) {
+        if (predicate == null)
+            return true;
+        Optional<EntityTypePredicate> type = predicate.entityType();
+        return type.isEmpty() || type.get().matches(entity.getType());
+    }
+
+    public static boolean mayMatch(@Nullable BlockPredicate predicate, BlockState state) {
+        if (predicate == null)
+            return true;
+        Optional<HolderSet<Block>> blocks = predicate.blocks();
+        return blocks.isEmpty() || state.is(blocks.get());
+    }
+
+    public static boolean mayMatch(@Nullable ItemPredicate predicate, ItemStack stack) {
+        if (predicate == null)
+            return true;
+        Optional<HolderSet<Item>> items = predicate.items();
+        return items.isEmpty() || stack.is(items.get());
+    }
+}
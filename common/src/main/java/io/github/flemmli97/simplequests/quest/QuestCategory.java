@@ -21,7 +21,7 @@ import java.util.function.Function;
 public class QuestCategory implements Comparable<QuestCategory> {
 
     public static final QuestCategory DEFAULT_CATEGORY = new QuestCategory(ResourceLocation.fromNamespaceAndPath(SimpleQuests.MODID, "default_category"),
-            "Main", List.of(), new ItemStack(Items.WRITTEN_BOOK), false, -1, -1, 0, true, true, false);
+            "Main", List.of(), new ItemStack(Items.WRITTEN_BOOK), false, -1, -1, 0, -1, true, true, false);
 
     public static final Function<Boolean, Codec<QuestCategory>> CODEC = Util.memoize(full -> RecordCodecBuilder.create(inst -> inst.group(
             Codec.BOOL.optionalFieldOf("is_visible").forGetter(c -> !c.isVisible || full ? Optional.of(c.isVisible) : Optional.empty()),
@@ -29,6 +29,7 @@ public class QuestCategory implements Comparable<QuestCategory> {
 
             Codec.INT.optionalFieldOf("sorting_id").forGetter(c -> c.sortingId != 0 || full ? Optional.of(c.sortingId) : Optional.empty()),
             Codec.INT.optionalFieldOf("max_daily").forGetter(c -> c.maxDaily != 0 || full ? Optional.of(c.maxDaily) : Optional.empty()),
+            Codec.INT.optionalFieldOf("daily_amount").forGetter(c -> c.dailyAmount != -1 || full ? Optional.of(c.dailyAmount) : Optional.empty()),
             Codec.BOOL.optionalFieldOf("selectable").forGetter(c -> !c.canBeSelected || full ? Optional.of(c.canBeSelected) : Optional.empty()),
 
             CodecHelper.ITEM_STACK_CODEC.optionalFieldOf("icon").forGetter(c -> ParseHelper.defaultChecked(c.getIcon(), full ? null : Items.WRITTEN_BOOK)),
@@ -38,8 +39,8 @@ public class QuestCategory implements Comparable<QuestCategory> {
             ResourceLocation.CODEC.optionalFieldOf("id").forGetter(c -> Optional.empty()), // ID only for deserializing
             Codec.STRING.fieldOf("name").forGetter(c -> c.name),
             Codec.STRING.listOf().optionalFieldOf("description").forGetter(c -> !c.description.isEmpty() || full ? Optional.of(c.description) : Optional.empty())
-    ).apply(inst, (visible, silent, sort, daily, select, icon, same, max, id, name, desc) -> new QuestCategory(id.orElseThrow(), name, desc.orElse(List.of()), icon.orElse(new ItemStack(Items.WRITTEN_BOOK)),
-            same.orElse(false), max.orElse(-1), sort.orElse(0), daily.orElse(-1), select.orElse(true), visible.orElse(true), silent.orElse(false)))));
+    ).apply(inst, (visible, silent, sort, daily, dailyAmount, select, icon, same, max, id, name, desc) -> new QuestCategory(id.orElseThrow(), name, desc.orElse(List.of()), icon.orElse(new ItemStack(Items.WRITTEN_BOOK)),
+            same.orElse(false), max.orElse(-1), sort.orElse(0), daily.orElse(-1), dailyAmount.orElse(-1), select.orElse(true), visible.orElse(true), silent.orElse(false)))));
 
     public final ResourceLocation id;
     private final String name;
@@ -49,9 +50,13 @@ public class QuestCategory implements Comparable<QuestCategory> {
     private final int maxConcurrentQuests;
     public final int sortingId;
     public final int maxDaily;
+    /**
+     * Amount of daily quests of this category given out on each reset or -1 for no limit. {@link io.github.flemmli97.simplequests.config.Config#dailyQuestAmount} still limits the total
+     */
+    public final int dailyAmount;
     public final boolean canBeSelected, isVisible, isSilent;
 
-    private QuestCategory(ResourceLocation id, String name, List<String> description, ItemStack icon, boolean sameCategoryOnly, int maxConcurrentQuests, int sortingID, int maxDaily, boolean canBeSelected, boolean isVisible, boolean isSilent) {
+    private QuestCategory(ResourceLocation id, String name, List<String> description, ItemStack icon, boolean sameCategoryOnly, int maxConcurrentQuests, int sortingID, int maxDaily, int dailyAmount, boolean canBeSelected, boolean isVisible, boolean isSilent) {
         this.id = id;
         this.name = name;
         this.description = description;
@@ -60,6 +65,7 @@ public class QuestCategory implements Comparable<QuestCategory> {
         this.maxConcurrentQuests = maxConcurrentQuests;
         this.sortingId = sortingID;
         this.maxDaily = maxDaily;
+        this.dailyAmount = dailyAmount;
         this.canBeSelected = canBeSelected;
         this.isVisible = isVisible;
         this.isSilent = isSilent;
@@ -117,6 +123,7 @@ public class QuestCategory implements Comparable<QuestCategory> {
         private boolean sameCategoryOnly;
         private int maxConcurrentQuests = -1;
         private int maxDaily = -1;
+        private int dailyAmount = -1;
 
         public Builder(ResourceLocation id, String name) {
             this.id = id;
@@ -168,8 +175,13 @@ public class QuestCategory implements Comparable<QuestCategory> {
             return this;
         }
 
+        public Builder setDailyAmount(int dailyAmount) {
+            this.dailyAmount = dailyAmount;
+            return this;
+        }
+
         public QuestCategory build() {
-            return new QuestCategory(this.id, this.name, this.description, this.icon, this.sameCategoryOnly, this.maxConcurrentQuests, this.sortingID, this.maxDaily, this.canBeSelected, this.isVisible, this.isSilent);
+            return new QuestCategory(this.id, this.name, this.description, this.icon, this.sameCategoryOnly, this.maxConcurrentQuests, this.sortingID, this.maxDaily, this.dailyAmount, this.canBeSelected, this.isVisible, this.isSilent);
         }
     }
 }
@@ -0,0 +1,124 @@
+package io.github.flemmli97.simplequests.quest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.github.flemmli97.simplequests.SimpleQuests;
+import io.github.flemmli97.simplequests.quest.types.CompositeQuest;
+import io.github.flemmli97.simplequests.quest.types.QuestBase;
+import io.github.flemmli97.simplequests.quest.types.SequentialQuest;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency graph of all quests built on reload.
+ * Edges go from a quest to its parent quests and from composite and sequential quests to their sub quests.
+ * The sub quest edges are only used to detect cycles.
+ */
+public class QuestGraph {
+
+    public static final QuestGraph EMPTY = new QuestGraph(Map.of(), Map.of());
+
+    private final Map<ResourceLocation, List<ResourceLocation>> parents;
+    private final Map<ResourceLocation, List<ResourceLocation>> dependents;
+
+    private QuestGraph(Map<ResourceLocation, List<ResourceLocation>> parents, Map<ResourceLocation, List<ResourceLocation>> dependents) {
+        this.parents = parents;
+        this.dependents = dependents;
+    }
+
+    /**
+     * Builds the graph and logs missing and cyclic references
+     */
+    public static QuestGraph build(Map<ResourceLocation, QuestBase> quests) {
+        ImmutableMap.Builder<ResourceLocation, List<ResourceLocation>> parents = ImmutableMap.builder();
+        Map<ResourceLocation, List<ResourceLocation>> dependents = new HashMap<>();
+        // Edges from a quest to the quests that need to come before it
+        Map<ResourceLocation, List<ResourceLocation>> edges = new HashMap<>();
+        quests.forEach((id, quest) -> {
+            List<ResourceLocation> questEdges = new ArrayList<>();
+            if (!quest.neededParentQuests.isEmpty()) {
+                parents.put(id, ImmutableList.copyOf(quest.neededParentQuests));
+                for (ResourceLocation parent : quest.neededParentQuests) {
+                    // Still added so unlocking it manually works
+                    dependents.computeIfAbsent(parent, p -> new ArrayList<>()).add(id);
+                    if (quests.containsKey(parent))
+                        questEdges.add(parent);
+                    else
+                        SimpleQuests.LOGGER.error("Parent quest {} of quest {} doesn't exist", parent, id);
+                }
+            }
+            for (ResourceLocation sub : subQuests(quest)) {
+                if (quests.containsKey(sub))
+                    questEdges.add(sub);
+                else
+                    SimpleQuests.LOGGER.error("Sub quest {} of quest {} doesn't exist", sub, id);
+            }
+            edges.put(id, questEdges);
+        });
+        // Kahn's algorithm. Anything not visited is part of or depends on a cycle
+        Map<ResourceLocation, Integer> remaining = new HashMap<>();
+        Map<ResourceLocation, List<ResourceLocation>> reverse = new HashMap<>();
+        edges.forEach((id, to) -> {
+            remaining.put(id, to.size());
+            to.forEach(t -> reverse.computeIfAbsent(t, k -> new ArrayList<>()).add(id));
+        });
+        Deque<ResourceLocation> queue = new ArrayDeque<>();
+        remaining.forEach((id, count) -> {
+            if (count == 0)
+                queue.add(id);
+        });
+        while (!queue.isEmpty()) {
+            ResourceLocation id = queue.poll();
+            for (ResourceLocation next : reverse.getOrDefault(id, List.of())) {
+                if (remaining.merge(next, -1, Integer::sum) == 0)
+                    queue.add(next);
+            }
+        }
+        Set<ResourceLocation> cyclic = new LinkedHashSet<>();
+        remaining.forEach((id, count) -> {
+            if (count > 0)
+                cyclic.add(id);
+        });
+        if (!cyclic.isEmpty())
+            SimpleQuests.LOGGER.error("Quests {} have cyclic dependencies and can't be completed", cyclic);
+        return new QuestGraph(parents.build(), dependents.entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, e -> ImmutableList.copyOf(e.getValue()))));
+    }
+
+    private static List<ResourceLocation> subQuests(QuestBase quest) {
+        if (quest instanceof CompositeQuest composite)
+            return composite.getCompositeQuests();
+        if (quest instanceof SequentialQuest sequential)
+            return sequential.getQuests();
+        return List.of();
+    }
+
+    /**
+     * @return The quests that need to be completed before the given quest can be accepted
+     */
+    public List<ResourceLocation> getParents(ResourceLocation quest) {
+        return this.parents.getOrDefault(quest, List.of());
+    }
+
+    /**
+     * @return All quests that have parents
+     */
+    public Set<ResourceLocation> getQuestsWithParents() {
+        return this.parents.keySet();
+    }
+
+    /**
+     * @return The quests that have the given quest as parent
+     */
+    public List<ResourceLocation> getDependents(ResourceLocation quest) {
+        return this.dependents.getOrDefault(quest, List.of());
+    }
+}
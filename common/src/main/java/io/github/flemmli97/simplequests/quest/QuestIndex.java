@@ -0,0 +1,66 @@
+package io.github.flemmli97.simplequests.quest;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Dense int indices of all quests and categories built on reload.
+ * The indices stay the same as long as the quests don't get reloaded so per player state can be kept in arrays instead of maps.
+ */
+public class QuestIndex {
+
+    public static final QuestIndex EMPTY = new QuestIndex(new Ids(List.of()), new Ids(List.of()));
+
+    private final Ids quests;
+    private final Ids categories;
+
+    private QuestIndex(Ids quests, Ids categories) {
+        this.quests = quests;
+        this.categories = categories;
+    }
+
+    public static QuestIndex build(Collection<ResourceLocation> quests, Collection<ResourceLocation> categories) {
+        return new QuestIndex(new Ids(quests), new Ids(categories));
+    }
+
+    public Ids quests() {
+        return this.quests;
+    }
+
+    public Ids categories() {
+        return this.categories;
+    }
+
+    public static class Ids {
+
+        private final ResourceLocation[] ids;
+        private final Object2IntMap<ResourceLocation> indices;
+
+        private Ids(Collection<ResourceLocation> ids) {
+            this.ids = ids.toArray(new ResourceLocation[0]);
+            this.indices = new Object2IntOpenHashMap<>(this.ids.length);
+            this.indices.defaultReturnValue(-1);
+            for (int i = 0; i < this.ids.length; i++)
+                this.indices.put(this.ids[i], i);
+        }
+
+        /**
+         * @return The index of the id or -1 if it's not part of the loaded quests
+         */
+        public int indexOf(ResourceLocation id) {
+            return id == null ? -1 : this.indices.getInt(id);
+        }
+
+        public ResourceLocation get(int index) {
+            return this.ids[index];
+        }
+
+        public int size() {
+            return this.ids.length;
+        }
+    }
+}
@@ -5,10 +5,12 @@ import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.flemmli97.simplequests.CodecHelper;
 import io.github.flemmli97.simplequests.SimpleQuests;
 import io.github.flemmli97.simplequests.api.QuestEntry;
+import io.github.flemmli97.simplequests.api.TickableArea;
 import io.github.flemmli97.simplequests.config.ConfigHandler;
 import io.github.flemmli97.simplequests.player.PlayerData;
 import io.github.flemmli97.simplequests.player.ProgressionTrackerImpl;
 import io.github.flemmli97.simplequests.player.QuestProgress;
+import io.github.flemmli97.simplequests.quest.PredicatePrefilter;
 import net.minecraft.ChatFormatting;
 import net.minecraft.advancements.Advancement;
 import net.minecraft.advancements.AdvancementHolder;
@@ -29,6 +31,7 @@ import net.minecraft.util.ExtraCodecs;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.state.pattern.BlockInWorld;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
@@ -178,7 +181,8 @@ public class QuestEntryImpls {
         }
 
         public boolean check(ServerPlayer player, Entity entity) {
-            return (this.playerPredicate == null || this.playerPredicate.matches(player, player))
+            return PredicatePrefilter.mayMatch(this.predicate, entity)
+                    && (this.playerPredicate == null || this.playerPredicate.matches(player, player))
                     && this.predicate.matches(player, entity);
         }
 
@@ -290,11 +294,21 @@ public class QuestEntryImpls {
         public Predicate<PlayerData> tickable() {
             return d -> {
                 ServerPlayer p = d.getPlayer();
-                if (this.playerPredicate != null && !this.playerPredicate.matches(p, p))
+                if (p.blockPosition().distSqr(this.pos) >= this.minDist * this.minDist)
                     return false;
-                return p.tickCount % 20 == 0 && p.blockPosition().distSqr(this.pos) < this.minDist * this.minDist;
+                return this.playerPredicate == null || this.playerPredicate.matches(p, p);
             };
         }
+
+        @Override
+        public int tickInterval() {
+            return 20;
+        }
+
+        @Override
+        public TickableArea tickableArea() {
+            return TickableArea.around(this.pos, this.minDist);
+        }
     }
 
     /**
@@ -335,20 +349,33 @@ public class QuestEntryImpls {
                 ServerPlayer p = d.getPlayer();
                 if (this.playerPredicate != null && !this.playerPredicate.matches(p, p))
                     return false;
-                return p.tickCount % 20 == 0 && this.location.matches(p.serverLevel(), p.getX(), p.getY(), p.getZ());
+                return this.location.matches(p.serverLevel(), p.getX(), p.getY(), p.getZ());
             };
         }
+
+        @Override
+        public int tickInterval() {
+            return 20;
+        }
+
+        @Override
+        public TickableArea tickableArea() {
+            return TickableArea.of(this.location);
+        }
     }
 
     /**
      * Quest entry to check if a player interacts with an entity.
      *
      * @param description Parsing the predicates is way too complicated. Its easier instead to have the datapack maker provide a description instead
+     * @param dedupWindow If positive only the last x interacted entities are remembered and count as duplicates
+     * @param dedupTicks  If positive entities only count as duplicates for x ticks after they were interacted with
      */
     public record EntityInteractEntry(ItemPredicate heldItem, EntityPredicate entityPredicate, int amount,
                                       boolean consume, String description, String heldDescription,
                                       String entityDescription,
-                                      EntityPredicate playerPredicate) implements QuestEntry {
+                                      EntityPredicate playerPredicate, int dedupWindow,
+                                      int dedupTicks) implements QuestEntry {
 
         public static final ResourceLocation ID = ResourceLocation.fromNamespaceAndPath(SimpleQuests.MODID, "entity_interact");
         public static final Codec<EntityInteractEntry> CODEC = RecordCodecBuilder.create((instance) ->
@@ -360,12 +387,14 @@ public class QuestEntryImpls {
                         EntityPredicate.CODEC.optionalFieldOf("predicate").forGetter(d -> Optional.ofNullable(d.entityPredicate)),
                         ExtraCodecs.POSITIVE_INT.fieldOf("amount").forGetter(d -> d.amount),
                         Codec.BOOL.fieldOf("consume").forGetter(d -> d.consume),
-                        EntityPredicate.CODEC.optionalFieldOf("playerPredicate").forGetter(d -> Optional.ofNullable(d.playerPredicate))
-                ).apply(instance, (desc, heldDesc, entityDesc, item, pred, amount, consume, player) ->
-                        new EntityInteractEntry(item.orElse(null), pred.orElse(null), amount, consume, desc, heldDesc.orElse(""), entityDesc.orElse(""), player.orElse(null))));
+                        EntityPredicate.CODEC.optionalFieldOf("playerPredicate").forGetter(d -> Optional.ofNullable(d.playerPredicate)),
+                        ExtraCodecs.POSITIVE_INT.optionalFieldOf("dedupWindow").forGetter(d -> d.dedupWindow > 0 ? Optional.of(d.dedupWindow) : Optional.empty()),
+                        ExtraCodecs.POSITIVE_INT.optionalFieldOf("dedupTicks").forGetter(d -> d.dedupTicks > 0 ? Optional.of(d.dedupTicks) : Optional.empty())
+                ).apply(instance, (desc, heldDesc, entityDesc, item, pred, amount, consume, player, window, ticks) ->
+                        new EntityInteractEntry(item.orElse(null), pred.orElse(null), amount, consume, desc, heldDesc.orElse(""), entityDesc.orElse(""), player.orElse(null), window.orElse(0), ticks.orElse(0))));
 
         public EntityInteractEntry(ItemPredicate heldItem, EntityPredicate entityPredicate, int amount, boolean consume, String description) {
-            this(heldItem, entityPredicate, amount, consume, description, "", "", null);
+            this(heldItem, entityPredicate, amount, consume, description, "", "", null, 0, 0);
         }
 
         @Override
@@ -390,6 +419,8 @@ public class QuestEntryImpls {
         }
 
         public boolean check(ServerPlayer player, Entity entity) {
+            if (!PredicatePrefilter.mayMatch(this.entityPredicate, entity) || !PredicatePrefilter.mayMatch(this.heldItem, player.getMainHandItem()))
+                return false;
             if (this.playerPredicate != null && !this.playerPredicate.matches(player, player))
                 return false;
             boolean b = (this.heldItem == null || this.heldItem.test(player.getMainHandItem())) &&
@@ -462,12 +493,17 @@ public class QuestEntryImpls {
         }
 
         public boolean check(ServerPlayer player, BlockPos pos, boolean use) {
-            if (this.playerPredicate != null && !this.playerPredicate.matches(player, player))
-                return false;
             if (use != this.use)
                 return false;
+            // Caches the block state so the prefilter and the predicate only look it up once
+            BlockInWorld block = this.blockPredicate != null ? new BlockInWorld(player.serverLevel(), pos, false) : null;
+            if (!PredicatePrefilter.mayMatch(this.heldItem, player.getMainHandItem())
+                    || (block != null && (block.getState() == null || !PredicatePrefilter.mayMatch(this.blockPredicate, block.getState()))))
+                return false;
+            if (this.playerPredicate != null && !this.playerPredicate.matches(player, player))
+                return false;
             boolean b = (this.heldItem == null || this.heldItem.test(player.getMainHandItem())) &&
-                    (this.blockPredicate == null || this.blockPredicate.matches(player.serverLevel(), pos));
+                    (block == null || this.blockPredicate.matches(block));
             if (b && this.consumeItem && !player.isCreative()) {
                 player.getMainHandItem().shrink(1);
             }
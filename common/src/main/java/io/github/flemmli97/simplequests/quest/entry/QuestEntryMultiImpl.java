@@ -242,8 +242,10 @@ public class QuestEntryMultiImpl {
                         CodecHelper.descriptiveList(EntityPredicate.CODEC, "empty entity predicates")
                                 .optionalFieldOf("entityPredicates").forGetter(d -> d.entityPredicates.isEmpty() ? Optional.empty() : Optional.of(d.entityPredicates)),
                         NumberProviders.CODEC.fieldOf("amount").forGetter(d -> d.amount),
-                        EntityPredicate.CODEC.optionalFieldOf("playerPredicate").forGetter(d -> Optional.ofNullable(d.playerPredicate))
-                ).apply(instance, (consume, desc, taskDescription, item, pred, amount, player) -> new MultiEntityInteractEntry(item.orElse(List.of()), pred.orElse(List.of()), amount, consume, desc, taskDescription, player.orElse(null))));
+                        EntityPredicate.CODEC.optionalFieldOf("playerPredicate").forGetter(d -> Optional.ofNullable(d.playerPredicate)),
+                        ExtraCodecs.POSITIVE_INT.optionalFieldOf("dedupWindow").forGetter(d -> d.dedupWindow > 0 ? Optional.of(d.dedupWindow) : Optional.empty()),
+                        ExtraCodecs.POSITIVE_INT.optionalFieldOf("dedupTicks").forGetter(d -> d.dedupTicks > 0 ? Optional.of(d.dedupTicks) : Optional.empty())
+                ).apply(instance, (consume, desc, taskDescription, item, pred, amount, player, window, ticks) -> new MultiEntityInteractEntry(item.orElse(List.of()), pred.orElse(List.of()), amount, consume, desc, taskDescription, player.orElse(null), window.orElse(0), ticks.orElse(0))));
 
         private final List<Pair<ItemPredicate, String>> heldItems;
         private final List<Pair<EntityPredicate, String>> entityPredicates;
@@ -251,8 +253,14 @@ public class QuestEntryMultiImpl {
         private final boolean consume;
         private final String taskDescription;
         private final EntityPredicate playerPredicate;
+        private final int dedupWindow;
+        private final int dedupTicks;
 
         public MultiEntityInteractEntry(List<Pair<ItemPredicate, String>> heldItems, List<Pair<EntityPredicate, String>> entityPredicates, NumberProvider amount, boolean consume, String description, String taskDescription, EntityPredicate playerPredicate) {
+            this(heldItems, entityPredicates, amount, consume, description, taskDescription, playerPredicate, 0, 0);
+        }
+
+        public MultiEntityInteractEntry(List<Pair<ItemPredicate, String>> heldItems, List<Pair<EntityPredicate, String>> entityPredicates, NumberProvider amount, boolean consume, String description, String taskDescription, EntityPredicate playerPredicate, int dedupWindow, int dedupTicks) {
             super(description);
             this.heldItems = heldItems;
             this.entityPredicates = entityPredicates;
@@ -260,6 +268,8 @@ public class QuestEntryMultiImpl {
             this.consume = consume;
             this.taskDescription = taskDescription;
             this.playerPredicate = playerPredicate;
+            this.dedupWindow = dedupWindow;
+            this.dedupTicks = dedupTicks;
         }
 
         @Override
@@ -272,7 +282,7 @@ public class QuestEntryMultiImpl {
             LootContext ctx = SimpleQuests.createContext(player, player, base.id);
             Pair<ItemPredicate, String> val = this.heldItems.isEmpty() ? Pair.of(null, "") : this.heldItems.get(ctx.getRandom().nextInt(this.heldItems.size()));
             Pair<EntityPredicate, String> entity = this.entityPredicates.isEmpty() ? Pair.of(null, "") : this.entityPredicates.get(ctx.getRandom().nextInt(this.entityPredicates.size()));
-            return new QuestEntryImpls.EntityInteractEntry(val.getFirst(), entity.getFirst(), getAmount(this.amount, ctx, base.id), this.consume, this.taskDescription, val.getSecond(), entity.getSecond(), this.playerPredicate);
+            return new QuestEntryImpls.EntityInteractEntry(val.getFirst(), entity.getFirst(), getAmount(this.amount, ctx, base.id), this.consume, this.taskDescription, val.getSecond(), entity.getSecond(), this.playerPredicate, this.dedupWindow, this.dedupTicks);
         }
     }
 
@@ -102,6 +102,7 @@ public class CompositeQuest extends QuestBase {
                     this.icon, this.repeatDelay, this.repeatDaily, this.sortingId, this.isDailyQuest,
                     this.unlockCondition, this.compositeQuests, this.visibility);
             quest.setDelayString(this.repeatDelayString);
+            quest.setDailyWeight(this.dailyWeight);
             return quest;
         }
     }
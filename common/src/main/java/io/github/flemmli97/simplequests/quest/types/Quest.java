@@ -21,6 +21,7 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.storage.loot.LootTable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -120,6 +121,13 @@ public class Quest extends QuestBase {
         return builder.build();
     }
 
+    /**
+     * @return The task entries as defined, before they get resolved for a player
+     */
+    public Map<String, QuestEntry> getEntries() {
+        return Collections.unmodifiableMap(this.entries);
+    }
+
     public static class Builder extends BuilderBase<Quest, Builder> {
 
         protected final Map<String, QuestEntry> entries = new LinkedHashMap<>();
@@ -161,6 +169,7 @@ public class Quest extends QuestBase {
                     this.loot, this.icon, this.repeatDelay, this.repeatDaily, this.sortingId, this.entries, this.isDailyQuest,
                     this.submissionTrigger, this.unlockCondition, this.command, this.visibility);
             quest.setDelayString(this.repeatDelayString);
+            quest.setDailyWeight(this.dailyWeight);
             return quest;
         }
     }
@@ -17,6 +17,7 @@ import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.ExtraCodecs;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
@@ -54,6 +55,11 @@ public abstract class QuestBase implements Comparable<QuestBase> {
 
     String repeatDelayString;
 
+    /**
+     * Weight of this quest when selecting daily quests
+     */
+    private int dailyWeight = 1;
+
     protected final EntityPredicate unlockCondition;
 
     public final Visibility visibility;
@@ -106,6 +112,7 @@ public abstract class QuestBase implements Comparable<QuestBase> {
                                 }),
                         Codec.INT.optionalFieldOf("repeat_daily").forGetter(q -> q.repeatDaily != 0 || full ? Optional.of(q.repeatDaily) : Optional.empty()),
                         Codec.INT.optionalFieldOf("sorting_id").forGetter(q -> q.sortingId != 0 || full ? Optional.of(q.sortingId) : Optional.empty()),
+                        ExtraCodecs.POSITIVE_INT.optionalFieldOf("daily_weight").forGetter(q -> q.dailyWeight != 1 || full ? Optional.of(q.dailyWeight) : Optional.empty()),
 
                         CodecHelper.listOrInline(ResourceLocation.CODEC).optionalFieldOf("parent_id").forGetter(q -> q.neededParentQuests.isEmpty() || full ? Optional.of(q.neededParentQuests) : Optional.empty()),
                         Codec.BOOL.optionalFieldOf("redo_parent").forGetter(q -> q.redoParent || full ? Optional.of(q.redoParent) : Optional.empty()),
@@ -116,9 +123,9 @@ public abstract class QuestBase implements Comparable<QuestBase> {
                         ResourceLocation.CODEC.optionalFieldOf("category").forGetter(q -> q.category != QuestCategory.DEFAULT_CATEGORY ? Optional.of(q.category.id) : Optional.empty()),
                         Codec.STRING.fieldOf("task").forGetter(q -> q.questTaskString),
                         CodecHelper.listOrInline(Codec.STRING).optionalFieldOf("description").forGetter(q -> q.questTaskDesc.isEmpty() || full ? Optional.of(q.questTaskDesc) : Optional.empty())
-                ).apply(instance, (isDaily, visibility, r, icon, repeatDelay, daily, sort, parent, redo_parent, unlock, unlockCondition, id, cat, task, desc) -> {
+                ).apply(instance, (isDaily, visibility, r, icon, repeatDelay, daily, sort, weight, parent, redo_parent, unlock, unlockCondition, id, cat, task, desc) -> {
                     B builder = fact.create(id.orElseThrow(), task, r);
-                    builder.withCategory(cat.map(c -> QuestsManager.instance().getQuestCategory(c)).orElse(QuestCategory.DEFAULT_CATEGORY));
+                    builder.withCategory(cat.map(QuestsManager::decodingCategory).orElse(QuestCategory.DEFAULT_CATEGORY));
                     desc.orElse(List.of())
                             .forEach(builder::addDescription);
                     parent.orElse(List.of())
@@ -134,6 +141,7 @@ public abstract class QuestBase implements Comparable<QuestBase> {
                     });
                     daily.ifPresent(builder::setMaxDaily);
                     sort.ifPresent(builder::withSortingNum);
+                    weight.ifPresent(builder::withDailyWeight);
                     if (isDaily.orElse(false))
                         builder.setDailyQuest();
                     unlockCondition.ifPresent(builder::withUnlockCondition);
@@ -149,6 +157,10 @@ public abstract class QuestBase implements Comparable<QuestBase> {
         return this.unlockCondition == null || this.unlockCondition.matches(player, player);
     }
 
+    public boolean hasUnlockCondition() {
+        return this.unlockCondition != null;
+    }
+
     public final MutableComponent getTask(ServerPlayer player) {
         return this.getTask(player, -1);
     }
@@ -215,6 +227,14 @@ public abstract class QuestBase implements Comparable<QuestBase> {
         this.repeatDelayString = repeatDelayString;
     }
 
+    protected void setDailyWeight(int dailyWeight) {
+        this.dailyWeight = dailyWeight;
+    }
+
+    public int getDailyWeight() {
+        return this.dailyWeight;
+    }
+
     /**
      * The trigger required to complete this quest
      */
@@ -294,6 +314,8 @@ public abstract class QuestBase implements Comparable<QuestBase> {
 
         protected int sortingId;
 
+        protected int dailyWeight = 1;
+
         protected EntityPredicate unlockCondition = null;
 
         protected ItemStack icon = new ItemStack(Items.PAPER);
@@ -361,6 +383,11 @@ public abstract class QuestBase implements Comparable<QuestBase> {
             return this.asThis();
         }
 
+        public T withDailyWeight(int weight) {
+            this.dailyWeight = weight;
+            return this.asThis();
+        }
+
         public T withUnlockCondition(EntityPredicate unlockCondition) {
             this.unlockCondition = unlockCondition;
             return this.asThis();
@@ -127,6 +127,7 @@ public class SequentialQuest extends QuestBase {
                     this.icon, this.repeatDelay, this.repeatDaily, this.sortingId, this.isDailyQuest,
                     this.unlockCondition, this.compositeQuests, this.loot, this.command, this.visibility);
             quest.setDelayString(this.repeatDelayString);
+            quest.setDailyWeight(this.dailyWeight);
             return quest;
         }
     }
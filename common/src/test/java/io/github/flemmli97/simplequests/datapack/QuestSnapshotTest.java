@@ -0,0 +1,55 @@
+package io.github.flemmli97.simplequests.datapack;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QuestSnapshotTest {
+
+    @Test
+    void jsonRoundTrip() {
+        JsonElement json = JsonParser.parseString("""
+                {
+                  "task": "simplequests.task",
+                  "category": "simplequests:example",
+                  "repeat_delay": 1200,
+                  "weight": 0.25,
+                  "big": 123456789012345678901234567890,
+                  "daily_quest": true,
+                  "empty": {},
+                  "missing": null,
+                  "unicode": "Ünïcödé ✓",
+                  "entries": [
+                    {"id": "simplequests:item", "amount": 3},
+                    [],
+                    "text",
+                    false
+                  ]
+                }
+                """);
+        JsonElement decoded = QuestSnapshot.decode(QuestSnapshot.encode(json));
+        assertEquals(json, decoded);
+        assertEquals("123456789012345678901234567890", decoded.getAsJsonObject().get("big").getAsString());
+        assertEquals(1200, decoded.getAsJsonObject().get("repeat_delay").getAsInt());
+    }
+
+    @Test
+    void longStrings() {
+        char[] chars = new char[100_000];
+        Arrays.fill(chars, 'a');
+        JsonElement json = JsonParser.parseString("[\"" + new String(chars) + "\"]");
+        assertEquals(json, QuestSnapshot.decode(QuestSnapshot.encode(json)));
+    }
+
+    @Test
+    void invalidData() {
+        byte[] encoded = QuestSnapshot.encode(JsonParser.parseString("{\"key\": [1, 2, 3]}"));
+        assertThrows(IllegalArgumentException.class, () -> QuestSnapshot.decode(Arrays.copyOf(encoded, encoded.length - 2)));
+        assertThrows(IllegalArgumentException.class, () -> QuestSnapshot.decode(new byte[]{42}));
+    }
+}
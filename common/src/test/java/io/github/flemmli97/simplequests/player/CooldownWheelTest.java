@@ -0,0 +1,84 @@
+package io.github.flemmli97.simplequests.player;
+
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CooldownWheelTest {
+
+    private static final ResourceLocation A = ResourceLocation.fromNamespaceAndPath("simplequests", "a");
+    private static final ResourceLocation B = ResourceLocation.fromNamespaceAndPath("simplequests", "b");
+
+    @Test
+    void firesAtExpiry() {
+        CooldownWheel wheel = new CooldownWheel();
+        wheel.advance(100, (id, time) -> {
+        });
+        wheel.schedule(A, 105);
+        Map<ResourceLocation, Long> fired = new HashMap<>();
+        for (long t = 101; t < 105; t++)
+            wheel.advance(t, fired::put);
+        assertTrue(fired.isEmpty());
+        wheel.advance(105, fired::put);
+        assertEquals(Map.of(A, 105L), fired);
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    void expiryFurtherThanOneRotation() {
+        CooldownWheel wheel = new CooldownWheel();
+        wheel.advance(0, (id, time) -> {
+        });
+        // Lands in the same bucket as tick 10
+        wheel.schedule(A, 10 + 256 * 3);
+        Map<ResourceLocation, Long> fired = new HashMap<>();
+        for (long t = 1; t < 10 + 256 * 3; t++)
+            wheel.advance(t, fired::put);
+        assertTrue(fired.isEmpty());
+        assertFalse(wheel.isEmpty());
+        wheel.advance(10 + 256 * 3, fired::put);
+        assertEquals(Map.of(A, 10L + 256 * 3), fired);
+    }
+
+    @Test
+    void skippedTicksStillFire() {
+        CooldownWheel wheel = new CooldownWheel();
+        wheel.advance(0, (id, time) -> {
+        });
+        wheel.schedule(A, 50);
+        wheel.schedule(B, 5000);
+        Map<ResourceLocation, Long> fired = new HashMap<>();
+        // Server was paused for longer than a rotation
+        wheel.advance(10000, fired::put);
+        assertEquals(Map.of(A, 50L, B, 5000L), fired);
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    void passedExpiryFiresOnNextAdvance() {
+        CooldownWheel wheel = new CooldownWheel();
+        wheel.advance(100, (id, time) -> {
+        });
+        wheel.schedule(A, 20);
+        Map<ResourceLocation, Long> fired = new HashMap<>();
+        wheel.advance(101, fired::put);
+        assertEquals(Map.of(A, 20L), fired);
+    }
+
+    @Test
+    void clearDropsScheduled() {
+        CooldownWheel wheel = new CooldownWheel();
+        wheel.schedule(A, 10);
+        wheel.clear();
+        assertTrue(wheel.isEmpty());
+        Map<ResourceLocation, Long> fired = new HashMap<>();
+        wheel.advance(20, fired::put);
+        assertTrue(fired.isEmpty());
+    }
+}
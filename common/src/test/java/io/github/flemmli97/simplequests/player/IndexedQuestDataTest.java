@@ -0,0 +1,143 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.datapack.QuestsManager;
+import io.github.flemmli97.simplequests.quest.QuestIndex;
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedQuestDataTest {
+
+    private static final ResourceLocation A = ResourceLocation.fromNamespaceAndPath("simplequests", "a");
+    private static final ResourceLocation B = ResourceLocation.fromNamespaceAndPath("simplequests", "b");
+    private static final ResourceLocation C = ResourceLocation.fromNamespaceAndPath("simplequests", "c");
+    private static final ResourceLocation D = ResourceLocation.fromNamespaceAndPath("simplequests", "d");
+
+    private static final QuestIndex.Ids FIRST = ids(A, B, C);
+    /**
+     * A got removed, D got added and the order changed
+     */
+    private static final QuestIndex.Ids SECOND = ids(C, D, B);
+
+    /**
+     * Simulates a reload by switching the ids returned to the data
+     */
+    private QuestIndex.Ids current;
+    private final Function<QuestIndex, QuestIndex.Ids> space = index -> this.current;
+
+    @BeforeAll
+    static void setup() {
+        QuestsManager.INSTANCE = new QuestsManager(null);
+    }
+
+    @AfterAll
+    static void cleanup() {
+        QuestsManager.INSTANCE = null;
+    }
+
+    @BeforeEach
+    void reset() {
+        this.current = FIRST;
+    }
+
+    @Test
+    void longMapRemap() {
+        IndexedLongMap map = new IndexedLongMap(this.space);
+        map.put(A, 1);
+        map.put(C, 3);
+        map.put(D, 4);
+        assertEquals(0, map.indexOf(A));
+        assertEquals(-1, map.indexOf(D));
+
+        this.current = SECOND;
+        assertEquals(-1, map.indexOf(A));
+        assertEquals(1, map.indexOf(D));
+        assertEquals(3, map.size());
+        assertEquals(1, map.get(A, -1));
+        assertEquals(3, map.get(C, -1));
+        assertEquals(4, map.get(D, -1));
+        assertFalse(map.containsKey(B));
+        assertEquals(Map.of(A, 1L, C, 3L, D, 4L), longs(map));
+
+        // Data of removed quests survives until they come back
+        this.current = FIRST;
+        assertEquals(0, map.indexOf(A));
+        assertEquals(1, map.get(A, -1));
+        assertEquals(Map.of(A, 1L, C, 3L, D, 4L), longs(map));
+    }
+
+    @Test
+    void intMapRemap() {
+        IndexedIntMap map = new IndexedIntMap(this.space);
+        map.put(B, 2);
+        map.increment(B);
+        map.put(D, 4);
+
+        this.current = SECOND;
+        assertEquals(3, map.get(B));
+        assertEquals(4, map.get(D));
+        assertEquals(0, map.get(A));
+        assertEquals(Map.of(B, 3, D, 4), ints(map));
+
+        map.increment(D);
+        this.current = FIRST;
+        assertEquals(5, map.get(D));
+        assertEquals(Map.of(B, 3, D, 5), ints(map));
+    }
+
+    @Test
+    void idSetRemap() {
+        IndexedIdSet set = new IndexedIdSet(this.space);
+        set.add(A);
+        set.add(C);
+        set.add(D);
+
+        this.current = SECOND;
+        assertTrue(set.contains(A));
+        assertTrue(set.contains(C));
+        assertTrue(set.contains(D));
+        assertFalse(set.contains(B));
+        assertTrue(set.containsAll(List.of(A, C, D)));
+        assertEquals(3, set.size());
+
+        set.remove(A);
+        set.remove(C);
+        this.current = FIRST;
+        assertEquals(Set.of(D), ids(set));
+    }
+
+    private static QuestIndex.Ids ids(ResourceLocation... ids) {
+        return QuestIndex.build(List.of(ids), List.of()).quests();
+    }
+
+    private static Map<ResourceLocation, Long> longs(IndexedLongMap map) {
+        Map<ResourceLocation, Long> result = new HashMap<>();
+        map.forEach(result::put);
+        return result;
+    }
+
+    private static Map<ResourceLocation, Integer> ints(IndexedIntMap map) {
+        Map<ResourceLocation, Integer> result = new HashMap<>();
+        map.forEach(result::put);
+        return result;
+    }
+
+    private static Set<ResourceLocation> ids(IndexedIdSet set) {
+        Set<ResourceLocation> result = new HashSet<>();
+        set.forEach(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,216 @@
+package io.github.flemmli97.simplequests.player;
+
+import io.github.flemmli97.simplequests.datapack.QuestsManager;
+import io.github.flemmli97.simplequests.quest.QuestIndex;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntArrayTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PlayerDataSaveTest {
+
+    private static final ResourceLocation A = ResourceLocation.fromNamespaceAndPath("simplequests", "a");
+    private static final ResourceLocation B = ResourceLocation.fromNamespaceAndPath("simplequests", "b");
+    private static final ResourceLocation CATEGORY = ResourceLocation.fromNamespaceAndPath("simplequests", "category");
+
+    @BeforeAll
+    static void setup() {
+        // Without loaded quests all ids are stored unindexed
+        QuestsManager.INSTANCE = new QuestsManager(null);
+    }
+
+    @AfterAll
+    static void cleanup() {
+        QuestsManager.INSTANCE = null;
+    }
+
+    @Test
+    void paletteRoundTrip() {
+        IndexedLongMap longs = new IndexedLongMap(QuestIndex::quests);
+        longs.put(A, 10);
+        longs.put(B, Long.MIN_VALUE);
+        IndexedIntMap ints = new IndexedIntMap(QuestIndex::quests);
+        ints.put(B, 3);
+        IndexedIdSet ids = new IndexedIdSet(QuestIndex::quests);
+        ids.add(A);
+
+        QuestIdPalette palette = new QuestIdPalette();
+        CompoundTag savedLongs = palette.saveLongs(longs);
+        CompoundTag savedInts = palette.saveInts(ints);
+        IntArrayTag savedIds = palette.saveIds(ids);
+        ListTag savedPalette = palette.save();
+        assertEquals(2, savedPalette.size());
+        assertSame(savedPalette, palette.save());
+
+        QuestIdPalette loaded = new QuestIdPalette();
+        loaded.load(savedPalette);
+        IndexedLongMap loadedLongs = new IndexedLongMap(QuestIndex::quests);
+        loaded.loadLongs(savedLongs, loadedLongs);
+        IndexedIntMap loadedInts = new IndexedIntMap(QuestIndex::quests);
+        loaded.loadInts(savedInts, loadedInts);
+        IndexedIdSet loadedIds = new IndexedIdSet(QuestIndex::quests);
+        loaded.loadIds(savedIds.getAsIntArray(), loadedIds);
+        assertEquals(Map.of(A, 10L, B, Long.MIN_VALUE), longs(loadedLongs));
+        assertEquals(Map.of(B, 3), ints(loadedInts));
+        assertEquals(Set.of(A), ids(loadedIds));
+    }
+
+    @Test
+    void invalidPaletteIdsAreSkipped() {
+        ListTag paletteTag = new ListTag();
+        paletteTag.add(StringTag.valueOf(A.toString()));
+        paletteTag.add(StringTag.valueOf("Not A Valid Id"));
+        paletteTag.add(StringTag.valueOf(B.toString()));
+        QuestIdPalette palette = new QuestIdPalette();
+        palette.load(paletteTag);
+        assertEquals(A, palette.get(0));
+        assertNull(palette.get(1));
+        assertEquals(B, palette.get(2));
+        assertNull(palette.get(3));
+
+        CompoundTag tag = new CompoundTag();
+        tag.putIntArray("Ids", new int[]{0, 1, 2, 5});
+        tag.putIntArray("Values", new int[]{1, 2, 3, 4});
+        IndexedIntMap map = new IndexedIntMap(QuestIndex::quests);
+        palette.loadInts(tag, map);
+        assertEquals(Map.of(A, 1, B, 3), ints(map));
+    }
+
+    @Test
+    void legacyFormatMigration() {
+        CompoundTag legacy = new CompoundTag();
+        CompoundTag cooldowns = new CompoundTag();
+        cooldowns.putLong(A.toString(), 100);
+        cooldowns.putLong("Invalid Key", 5);
+        legacy.put("FinishedQuests", cooldowns);
+        CompoundTag daily = new CompoundTag();
+        daily.putInt(B.toString(), 2);
+        legacy.put("DailyQuestTracker", daily);
+        CompoundTag dailyCategory = new CompoundTag();
+        dailyCategory.putInt(CATEGORY.toString(), 1);
+        legacy.put("DailyQuestCategoryTracker", dailyCategory);
+        CompoundTag finished = new CompoundTag();
+        finished.putInt(A.toString(), 4);
+        finished.putInt(B.toString(), 7);
+        legacy.put("FinishedQuestTracker", finished);
+        ListTag unlocked = new ListTag();
+        unlocked.add(StringTag.valueOf(B.toString()));
+        legacy.put("UnlockedQuests", unlocked);
+
+        PlayerData data = new PlayerData(null);
+        data.loadTrackers(legacy);
+        CompoundTag saved = new CompoundTag();
+        data.saveTrackers(saved);
+        assertEquals(2, saved.getInt("SaveVersion"));
+        assertEquals(3, saved.getList("Palette", Tag.TAG_STRING).size());
+        assertSavedTrackers(saved);
+
+        // Loading the new format again gives the same trackers
+        PlayerData reloaded = new PlayerData(null);
+        reloaded.loadTrackers(saved);
+        CompoundTag resaved = new CompoundTag();
+        reloaded.saveTrackers(resaved);
+        assertSavedTrackers(resaved);
+    }
+
+    @Test
+    void paletteGetsCompacted() {
+        ListTag paletteTag = new ListTag();
+        paletteTag.add(StringTag.valueOf("simplequests:removed"));
+        paletteTag.add(StringTag.valueOf("Not A Valid Id"));
+        paletteTag.add(StringTag.valueOf(A.toString()));
+        CompoundTag tag = new CompoundTag();
+        tag.putInt("SaveVersion", 2);
+        tag.put("Palette", paletteTag);
+        CompoundTag cooldowns = new CompoundTag();
+        cooldowns.putIntArray("Ids", new int[]{1, 2});
+        cooldowns.putLongArray("Values", new long[]{5, 6});
+        tag.put("Cooldowns", cooldowns);
+
+        PlayerData data = new PlayerData(null);
+        data.loadTrackers(tag);
+        CompoundTag saved = new CompoundTag();
+        data.saveTrackers(saved);
+        ListTag savedPalette = saved.getList("Palette", Tag.TAG_STRING);
+        assertEquals(1, savedPalette.size());
+        assertEquals(A.toString(), savedPalette.getString(0));
+        assertEquals(Map.of(A, 6L), savedLongs(saved, "Cooldowns"));
+    }
+
+    @Test
+    void unchangedTrackersReuseTheirTags() {
+        CompoundTag legacy = new CompoundTag();
+        CompoundTag cooldowns = new CompoundTag();
+        cooldowns.putLong(A.toString(), 100);
+        legacy.put("FinishedQuests", cooldowns);
+        PlayerData data = new PlayerData(null);
+        data.loadTrackers(legacy);
+        CompoundTag first = new CompoundTag();
+        data.saveTrackers(first);
+        CompoundTag second = new CompoundTag();
+        data.saveTrackers(second);
+        assertSame(first.get("Cooldowns"), second.get("Cooldowns"));
+        assertSame(first.get("Palette"), second.get("Palette"));
+    }
+
+    private static void assertSavedTrackers(CompoundTag saved) {
+        assertEquals(Map.of(A, 100L), savedLongs(saved, "Cooldowns"));
+        assertEquals(Map.of(B, 2), savedInts(saved, "DailyQuests"));
+        assertEquals(Map.of(CATEGORY, 1), savedInts(saved, "DailyCategories"));
+        assertEquals(Map.of(A, 4, B, 7), savedInts(saved, "FinishedCounts"));
+        QuestIdPalette palette = palette(saved);
+        IndexedIdSet unlocked = new IndexedIdSet(QuestIndex::quests);
+        palette.loadIds(saved.getIntArray("Unlocked"), unlocked);
+        assertEquals(Set.of(B), ids(unlocked));
+    }
+
+    private static QuestIdPalette palette(CompoundTag saved) {
+        QuestIdPalette palette = new QuestIdPalette();
+        palette.load(saved.getList("Palette", Tag.TAG_STRING));
+        return palette;
+    }
+
+    private static Map<ResourceLocation, Long> savedLongs(CompoundTag saved, String key) {
+        IndexedLongMap map = new IndexedLongMap(QuestIndex::quests);
+        palette(saved).loadLongs(saved.getCompound(key), map);
+        return longs(map);
+    }
+
+    private static Map<ResourceLocation, Integer> savedInts(CompoundTag saved, String key) {
+        IndexedIntMap map = new IndexedIntMap(QuestIndex::quests);
+        palette(saved).loadInts(saved.getCompound(key), map);
+        return ints(map);
+    }
+
+    private static Map<ResourceLocation, Long> longs(IndexedLongMap map) {
+        Map<ResourceLocation, Long> result = new HashMap<>();
+        map.forEach(result::put);
+        return result;
+    }
+
+    private static Map<ResourceLocation, Integer> ints(IndexedIntMap map) {
+        Map<ResourceLocation, Integer> result = new HashMap<>();
+        map.forEach(result::put);
+        return result;
+    }
+
+    private static Set<ResourceLocation> ids(IndexedIdSet set) {
+        Set<ResourceLocation> result = new HashSet<>();
+        set.forEach(result::add);
+        return result;
+    }
+}
@@ -7,14 +7,20 @@ import io.github.flemmli97.simplequests.config.ConfigHandler;
 import io.github.flemmli97.simplequests.datapack.ProgressionTrackerRegistry;
 import io.github.flemmli97.simplequests.datapack.QuestBaseRegistry;
 import io.github.flemmli97.simplequests.datapack.QuestEntryRegistry;
+import io.github.flemmli97.simplequests.datapack.QuestHotReload;
 import io.github.flemmli97.simplequests.datapack.QuestsManager;
 import io.github.flemmli97.simplequests.network.C2SNotify;
 import io.github.flemmli97.simplequests.player.PlayerData;
+import io.github.flemmli97.simplequests.player.ProgressRebinder;
+import io.github.flemmli97.simplequests.player.QuestDataStore;
+import io.github.flemmli97.simplequests.player.QuestResetClock;
 import io.github.flemmli97.simplequests.quest.QuestNumberProvider;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.Event;
 import net.fabricmc.fabric.api.event.EventFactory;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.event.player.PlayerBlockBreakEvents;
 import net.fabricmc.fabric.api.event.player.UseBlockCallback;
 import net.fabricmc.fabric.api.event.player.UseEntityCallback;
@@ -66,6 +72,18 @@ public class SimpleQuestsFabric implements ModInitializer {
             }
         });
         CommandRegistrationCallback.EVENT.register(((dispatcher, dedicated, selection) -> QuestCommand.register(dispatcher)));
+        ServerTickEvents.END_SERVER_TICK.register(QuestResetClock::tick);
+        ServerTickEvents.END_SERVER_TICK.register(ProgressRebinder::tick);
+        ServerTickEvents.END_SERVER_TICK.register(server -> PlayerData.flushAllBufferedEvents());
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            QuestResetClock.reset();
+            QuestHotReload.start(server);
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            QuestHotReload.stop();
+            QuestDataStore.flush();
+            QuestResetClock.reset();
+        });
         QuestBaseRegistry.register();
         QuestEntryRegistry.register();
         ProgressionTrackerRegistry.register();
@@ -6,10 +6,14 @@ import io.github.flemmli97.simplequests.config.ConfigHandler;
 import io.github.flemmli97.simplequests.datapack.ProgressionTrackerRegistry;
 import io.github.flemmli97.simplequests.datapack.QuestBaseRegistry;
 import io.github.flemmli97.simplequests.datapack.QuestEntryRegistry;
+import io.github.flemmli97.simplequests.datapack.QuestHotReload;
 import io.github.flemmli97.simplequests.datapack.QuestsManager;
 import io.github.flemmli97.simplequests.forge.client.ForgeClientHandler;
 import io.github.flemmli97.simplequests.network.C2SNotify;
 import io.github.flemmli97.simplequests.player.PlayerData;
+import io.github.flemmli97.simplequests.player.ProgressRebinder;
+import io.github.flemmli97.simplequests.player.QuestDataStore;
+import io.github.flemmli97.simplequests.player.QuestResetClock;
 import io.github.flemmli97.simplequests.quest.QuestNumberProvider;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.server.level.ServerPlayer;
@@ -26,6 +30,9 @@ import net.neoforged.neoforge.event.RegisterCommandsEvent;
 import net.neoforged.neoforge.event.entity.living.LivingDeathEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerInteractEvent;
 import net.neoforged.neoforge.event.level.BlockEvent;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
 import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 import net.neoforged.neoforge.registries.DeferredHolder;
@@ -47,6 +54,9 @@ public class SimpleQuestForge {
         NeoForge.EVENT_BUS.addListener(SimpleQuestForge::interactSpecific);
         NeoForge.EVENT_BUS.addListener(SimpleQuestForge::interactBlock);
         NeoForge.EVENT_BUS.addListener(SimpleQuestForge::breakBlock);
+        NeoForge.EVENT_BUS.addListener(SimpleQuestForge::serverTick);
+        NeoForge.EVENT_BUS.addListener(SimpleQuestForge::serverStarted);
+        NeoForge.EVENT_BUS.addListener(SimpleQuestForge::serverStopped);
         if (FMLEnvironment.dist == Dist.CLIENT)
             NeoForge.EVENT_BUS.addListener(ForgeClientHandler::login);
         QuestBaseRegistry.register();
@@ -85,6 +95,23 @@ public class SimpleQuestForge {
             PlayerData.get(serverPlayer).onBlockInteract(event.getPos(), true);
     }
 
+    public static void serverTick(ServerTickEvent.Post event) {
+        QuestResetClock.tick(event.getServer());
+        ProgressRebinder.tick(event.getServer());
+        PlayerData.flushAllBufferedEvents();
+    }
+
+    public static void serverStarted(ServerStartedEvent event) {
+        QuestResetClock.reset();
+        QuestHotReload.start(event.getServer());
+    }
+
+    public static void serverStopped(ServerStoppedEvent event) {
+        QuestHotReload.stop();
+        QuestDataStore.flush();
+        QuestResetClock.reset();
+    }
+
     public static void breakBlock(BlockEvent.BreakEvent event) {
         if (event.getPlayer() instanceof ServerPlayer serverPlayer)
             PlayerData.get(serverPlayer).onBlockInteract(event.getPos(), false);